@@ -0,0 +1,68 @@
+package com.ms.benchmarks;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.mappers.EmailMapper;
+import com.ms.email.models.EmailModel;
+import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.mappers.UserMapper;
+import com.ms.user.models.UserModel;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.BeanUtils;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DTO to entity copies done per request in {@code UserController.saveUser} and per message in
+ * {@code EmailConsumer.listenEmailQueue} before they moved to {@code UserMapper} and
+ * {@code EmailMapper}, against the mappers now in use.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BeanCopyBenchmark {
+
+    @Param({"32", "512", "8192"})
+    private int payloadSize;
+
+    private final UserMapper userMapper = new UserMapper();
+    private final EmailMapper emailMapper = new EmailMapper();
+
+    private UserRecordDto userRecordDto;
+    private EmailRecordDto emailRecordDto;
+
+    @Setup
+    public void setUp() {
+        userRecordDto = new UserRecordDto(Payloads.text(payloadSize), Payloads.email(32));
+        emailRecordDto = new EmailRecordDto(UUID.randomUUID(), Payloads.email(32), "Assunto", Payloads.text(payloadSize),
+                "welcome", Map.of("name", "Giselle"));
+    }
+
+    @Benchmark
+    public UserModel userBeanUtils() {
+        var userModel = new UserModel();
+        BeanUtils.copyProperties(userRecordDto, userModel);
+        return userModel;
+    }
+
+    @Benchmark
+    public UserModel userMapper() {
+        return userMapper.toModel(userRecordDto);
+    }
+
+    @Benchmark
+    public EmailModel emailBeanUtils() {
+        var emailModel = new EmailModel();
+        BeanUtils.copyProperties(emailRecordDto, emailModel);
+        return emailModel;
+    }
+
+    @Benchmark
+    public EmailModel emailMapper() {
+        return emailMapper.toModel(emailRecordDto);
+    }
+}
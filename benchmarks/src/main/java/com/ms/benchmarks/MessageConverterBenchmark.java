@@ -0,0 +1,75 @@
+package com.ms.benchmarks;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.user.dtos.EmailDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of putting an email on the wire and taking it off again, with the converters both
+ * services actually register. {@code payloadSize} is the length of the free text carried in the
+ * message, from a template variable up to a full legacy body.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageConverterBenchmark {
+
+    @Param({"32", "512", "8192"})
+    private int payloadSize;
+
+    private Jackson2JsonMessageConverter producerJson;
+    private Jackson2JsonMessageConverter consumerJson;
+    private com.ms.user.converters.BinaryEmailMessageConverter producerBinary;
+    private com.ms.email.converters.BinaryEmailMessageConverter consumerBinary;
+
+    private EmailDto emailDto;
+    private Message jsonMessage;
+    private Message binaryMessage;
+
+    @Setup
+    public void setUp() {
+        producerJson = new com.ms.user.configurations.RabbitMQConfig().messageConverter();
+        consumerJson = new com.ms.email.configurations.RabbitMQConfig().messageConverter();
+        producerBinary = new com.ms.user.configurations.RabbitMQConfig().binaryMessageConverter();
+        consumerBinary = new com.ms.email.configurations.RabbitMQConfig().binaryMessageConverter();
+
+        emailDto = new EmailDto(UUID.randomUUID(), Payloads.email(32), null, Payloads.text(payloadSize));
+        emailDto.setTemplateId("welcome");
+        emailDto.setVariables(Map.of("name", Payloads.text(Math.min(payloadSize, 64))));
+
+        jsonMessage = producerJson.toMessage(emailDto, new MessageProperties());
+        // What the listener adapter sets before conversion: the type of the @Payload parameter.
+        jsonMessage.getMessageProperties().setInferredArgumentType(EmailRecordDto.class);
+        binaryMessage = producerBinary.toMessage(emailDto, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message jsonEncode() {
+        return producerJson.toMessage(emailDto, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object jsonDecode() {
+        return consumerJson.fromMessage(jsonMessage);
+    }
+
+    @Benchmark
+    public Message binaryEncode() {
+        return producerBinary.toMessage(emailDto, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object binaryDecode() {
+        return consumerBinary.fromMessage(binaryMessage);
+    }
+}
@@ -0,0 +1,25 @@
+package com.ms.benchmarks;
+
+import java.util.Arrays;
+
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    // Accented text, so UTF-8 encoding is measured on multi-byte characters as in production.
+    static String text(int length) {
+        char[] chars = new char[length];
+        char[] sample = "Olá, seja bem vindo(a) à plataforma! ".toCharArray();
+        for (int i = 0; i < length; i++) {
+            chars[i] = sample[i % sample.length];
+        }
+        return new String(chars);
+    }
+
+    static String email(int length) {
+        char[] local = new char[Math.max(1, length - "@example.com".length())];
+        Arrays.fill(local, 'a');
+        return new String(local) + "@example.com";
+    }
+}
@@ -0,0 +1,61 @@
+package com.ms.benchmarks;
+
+import com.ms.user.configurations.RabbitMQConfig;
+import com.ms.user.models.UserModel;
+import com.ms.user.producers.EmailPartitioner;
+import com.ms.user.producers.UserProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everything {@code UserProducer.publishMessageEmail} does to a user before the bytes reach the
+ * channel: building the {@code EmailDto}, converting it with the configured codec and stamping
+ * the message id and timestamp headers. No broker is involved.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PublishBodyBenchmark {
+
+    @Param({"32", "512", "8192"})
+    private int payloadSize;
+
+    @Param({"json", "binary"})
+    private String codec;
+
+    private UserProducer userProducer;
+    private MessageConverter converter;
+    private UserModel userModel;
+    private String messageId;
+    private long producedAt;
+
+    @Setup
+    public void setUp() {
+        userProducer = new UserProducer(new RabbitTemplate(), new EmailPartitioner(1), Runnable::run, new SimpleMeterRegistry(), 1);
+        var config = new RabbitMQConfig();
+        converter = "binary".equals(codec) ? config.binaryMessageConverter() : config.messageConverter();
+        userModel = new UserModel(UUID.randomUUID(), Payloads.text(payloadSize), Payloads.email(32));
+        messageId = UUID.randomUUID().toString();
+        producedAt = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public Message buildAndConvert() {
+        Message message = converter.toMessage(userProducer.buildEmailDto(userModel), new MessageProperties());
+        MessageProperties properties = message.getMessageProperties();
+        properties.setMessageId(messageId);
+        properties.setHeader(UserProducer.PRODUCED_AT_HEADER, producedAt);
+        properties.setHeader(UserProducer.PUBLISHED_AT_HEADER, System.currentTimeMillis());
+        return message;
+    }
+}
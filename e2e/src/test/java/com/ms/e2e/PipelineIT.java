@@ -0,0 +1,334 @@
+package com.ms.e2e;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.e2e.support.E2eEnvironment;
+import com.ms.e2e.support.SignupClient;
+import com.ms.email.configurations.EmailPartitions;
+import com.ms.email.consumer.PartitionOwnership;
+import com.ms.email.services.DeliveryStatistics;
+import com.ms.email.services.EmailPartitionMaintenance;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+class PipelineIT {
+
+    private static E2eEnvironment environment;
+    private static SignupClient signupClient;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        environment = new E2eEnvironment();
+        signupClient = new SignupClient(environment);
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (environment != null) {
+            environment.close();
+        }
+    }
+
+    @Test
+    void signup_WelcomeEmailDeliveredAndRecorded() {
+        long delivered = environment.deliveries().delivered();
+
+        assertEquals(201, signupClient.signup("Pipeline User", "pipeline@example.com").join());
+
+        awaitTrue(() -> environment.deliveries().delivered() == delivered + 1);
+        JdbcTemplate emailJdbc = environment.emailContext().getBean(JdbcTemplate.class);
+        awaitTrue(() -> !emailJdbc.queryForList("SELECT subject FROM tb_emails WHERE email_to = ?", String.class,
+                "pipeline@example.com").isEmpty());
+        List<String> subjects = emailJdbc.queryForList("SELECT subject FROM tb_emails WHERE email_to = ?", String.class,
+                "pipeline@example.com");
+        assertEquals(List.of("Cadastro realizado com sucesso!"), subjects);
+        awaitTrue(() -> environment.outboxSize() == 0);
+    }
+
+    @Test
+    void duplicateSignup_Rejected_NoSecondEmail() throws InterruptedException {
+        assertEquals(201, signupClient.signup("First", "duplicate@example.com").join());
+        awaitTrue(() -> environment.deliveries().pending() == 0);
+        long delivered = environment.deliveries().delivered();
+
+        assertEquals(409, signupClient.signup("Second", "duplicate@example.com").join());
+
+        Thread.sleep(1000);
+        assertEquals(delivered, environment.deliveries().delivered());
+        assertEquals(0, environment.deliveries().unexpected());
+    }
+
+    @Test
+    void emailLog_RangePartitionedWithUpcomingMonths() {
+        JdbcTemplate emailJdbc = environment.emailContext().getBean(JdbcTemplate.class);
+
+        List<String> partitions = emailJdbc.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+                + "WHERE p.relname = 'tb_emails'", String.class);
+
+        YearMonth now = YearMonth.now();
+        assertTrue(partitions.contains("tb_emails_p" + now.format(DateTimeFormatter.ofPattern("yyyy_MM"))));
+        assertTrue(partitions.contains("tb_emails_p" + now.plusMonths(2).format(DateTimeFormatter.ofPattern("yyyy_MM"))));
+    }
+
+    @Test
+    void partitionMaintenance_SkippedWhileAnotherInstanceHoldsTheLock() throws Exception {
+        JdbcTemplate emailJdbc = environment.emailContext().getBean(JdbcTemplate.class);
+        EmailPartitionMaintenance maintenance = environment.emailContext().getBean(EmailPartitionMaintenance.class);
+        String upcoming = "tb_emails_p" + YearMonth.now().plusMonths(2).format(DateTimeFormatter.ofPattern("yyyy_MM"));
+        String exists = "SELECT EXISTS (SELECT 1 FROM pg_class WHERE relname = ?)";
+
+        try (Connection otherInstance = emailJdbc.getDataSource().getConnection();
+             Statement statement = otherInstance.createStatement()) {
+            statement.execute("SELECT pg_advisory_lock(hashtext('tb_emails_maintenance'))");
+            emailJdbc.execute("DROP TABLE " + upcoming);
+
+            maintenance.maintain();
+            assertFalse(emailJdbc.queryForObject(exists, Boolean.class, upcoming));
+
+            statement.execute("SELECT pg_advisory_unlock(hashtext('tb_emails_maintenance'))");
+        }
+        maintenance.maintain();
+        assertTrue(emailJdbc.queryForObject(exists, Boolean.class, upcoming));
+    }
+
+    @Test
+    void partitionOwnership_SpreadAcrossInstancesAndTakenOverWhenOneDies() throws InterruptedException {
+        // Drives its own instances against the lease tables; a partitioned service would join them.
+        assumeTrue(environment.emailContext().getBeanProvider(PartitionOwnership.class).getIfAvailable() == null);
+        JdbcTemplate emailJdbc = environment.emailContext().getBean(JdbcTemplate.class);
+        emailJdbc.update("DELETE FROM tb_email_partition_owners");
+        emailJdbc.update("DELETE FROM tb_email_consumers");
+        PartitionOwnership a = ownership("instance-a");
+        PartitionOwnership b = ownership("instance-b");
+        PartitionOwnership c = ownership("instance-c");
+
+        a.rebalance();
+        assertEquals(Set.of(0, 1, 2, 3), a.getOwned());
+
+        // A new instance takes its share over from the existing one.
+        awaitBalanced(List.of(a, b), 2, 2);
+        awaitBalanced(List.of(a, b, c), 2, 1, 1);
+
+        // c stops heartbeating; once its lease expires the others split its partition.
+        Thread.sleep(1500);
+        awaitBalanced(List.of(a, b), 2, 2);
+
+        a.release();
+        b.release();
+        c.release();
+    }
+
+    private static PartitionOwnership ownership(String instanceId) {
+        var ownership = new PartitionOwnership(environment.emailContext().getBean(JdbcTemplate.class),
+                mock(RabbitListenerEndpointRegistry.class), new EmailPartitions("emails.e2e", 4),
+                environment.emailContext().getBean(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(ownership, "instanceId", instanceId);
+        ReflectionTestUtils.setField(ownership, "leaseMs", 1000L);
+        return ownership;
+    }
+
+    // Ticks every instance until their partitions are disjoint, cover all four and have the expected sizes.
+    private static void awaitBalanced(List<PartitionOwnership> instances, Integer... expectedSizes) {
+        awaitTrue(() -> {
+            instances.forEach(PartitionOwnership::rebalance);
+            Set<Integer> covered = new HashSet<>();
+            List<Integer> sizes = new ArrayList<>();
+            for (PartitionOwnership instance : instances) {
+                sizes.add(instance.getOwned().size());
+                covered.addAll(instance.getOwned());
+            }
+            return covered.equals(Set.of(0, 1, 2, 3)) && sizes.stream().mapToInt(Integer::intValue).sum() == 4
+                    && sizes.equals(List.of(expectedSizes));
+        });
+    }
+
+    @Test
+    void emailHistory_KeysetPagesCoverEveryEmailOnce() throws Exception {
+        JdbcTemplate emailJdbc = environment.emailContext().getBean(JdbcTemplate.class);
+        UUID userId = UUID.randomUUID();
+        LocalDateTime sendDate = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < 5; i++) {
+            // Two emails share a timestamp, so the email id has to break the tie.
+            emailJdbc.update("INSERT INTO tb_emails (email_id, user_id, email_to, subject, text, send_date_email, status_email, attempt_count) "
+                    + "VALUES (?, ?, 'history@example.com', 'Assunto', 'Texto', ?, 0, 0)",
+                    UUID.randomUUID(), userId, sendDate.minusMinutes(Math.min(i, 3)));
+        }
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String uri = environment.emailServiceUrl() + "/emails?size=2&userId=" + userId + (cursor != null ? "&cursor=" + cursor : "");
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(uri)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            JsonNode page = objectMapper.readTree(response.body());
+            page.get("emails").forEach(email -> {
+                assertFalse(email.has("text"));
+                seen.add(email.get("emailId").asText());
+            });
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(5, seen.size());
+        assertEquals(5, Set.copyOf(seen).size());
+
+        HttpResponse<String> invalid = httpClient.send(HttpRequest.newBuilder(
+                URI.create(environment.emailServiceUrl() + "/emails?cursor=bad")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalid.statusCode());
+    }
+
+    @Test
+    void deliveryStats_CountSendsAndCheckpoint() throws Exception {
+        assertEquals(201, signupClient.signup("Stats User", "stats@example.com").join());
+        awaitTrue(() -> environment.deliveries().pending() == 0);
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                URI.create(environment.emailServiceUrl() + "/actuator/deliverystats/example.com?minutes=5")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(new ObjectMapper().readTree(response.body()).get("SENT").asLong() >= 1);
+
+        environment.emailContext().getBean(DeliveryStatistics.class).checkpoint();
+        JdbcTemplate emailJdbc = environment.emailContext().getBean(JdbcTemplate.class);
+        Long checkpointed = emailJdbc.queryForObject("SELECT coalesce(sum(count), 0) FROM tb_delivery_stats "
+                + "WHERE domain = 'example.com' AND status_email = 0", Long.class);
+        assertTrue(checkpointed >= 1);
+    }
+
+    @Test
+    void importUsers_ConflictOnInsertReportedPerRow() throws Exception {
+        // Written behind the service's back, so neither the Bloom filter nor the existence check sees it.
+        environment.userContext().getBean(JdbcTemplate.class).update(
+                "INSERT INTO tb_users (user_id, name, email, version) VALUES (?, 'Existing', 'import-conflict@example.com', 0)",
+                UUID.randomUUID());
+        long delivered = environment.deliveries().delivered();
+        environment.deliveries().signupStarted("import1@example.com");
+        environment.deliveries().signupStarted("import2@example.com");
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                        URI.create(environment.userServiceUrl() + "/users/batch"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString("""
+                        {"name": "Import 1", "email": "import1@example.com"}
+                        {"name": "Conflict", "email": "import-conflict@example.com"}
+                        {"name": "Import 2", "email": "import2@example.com"}
+                        """))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        JsonNode results = new ObjectMapper().readTree(response.body());
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("DUPLICATE", results.get(1).get("status").asText());
+        assertEquals("CREATED", results.get(2).get("status").asText());
+        awaitTrue(() -> environment.deliveries().delivered() >= delivered + 2);
+    }
+
+    @Test
+    void exportUsers_StreamsEveryUserAsNdjson() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(201, signupClient.signup("Export " + i, "export" + i + "@example.com").join());
+        }
+        Long users = environment.userContext().getBean(JdbcTemplate.class).queryForObject("SELECT count(*) FROM tb_users", Long.class);
+
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                URI.create(environment.userServiceUrl() + "/users/export")).build(), HttpResponse.BodyHandlers.ofLines());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElseThrow());
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> emails = response.body().map(line -> {
+            try {
+                return objectMapper.readTree(line).get("email").asText();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).toList();
+        assertEquals(users, emails.size());
+        assertTrue(emails.containsAll(List.of("export0@example.com", "export1@example.com", "export2@example.com")));
+    }
+
+    @Test
+    void updateAndDelete_IfMatchGuardsAgainstStaleVersions() throws Exception {
+        assertEquals(201, signupClient.signup("Versioned", "versioned@example.com").join());
+        assertEquals(201, signupClient.signup("Other", "versioned-other@example.com").join());
+        UUID userId = environment.userContext().getBean(JdbcTemplate.class)
+                .queryForObject("SELECT user_id FROM tb_users WHERE email = 'versioned@example.com'", UUID.class);
+        HttpClient httpClient = HttpClient.newHttpClient();
+        URI uri = URI.create(environment.userServiceUrl() + "/users/" + userId);
+
+        HttpResponse<String> read = httpClient.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+        String etag = read.headers().firstValue("ETag").orElseThrow();
+        assertEquals("\"0\"", etag);
+
+        HttpResponse<String> updated = httpClient.send(put(uri, etag, "versioned2@example.com"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, updated.statusCode());
+        assertEquals("\"1\"", updated.headers().firstValue("ETag").orElseThrow());
+
+        assertEquals(409, httpClient.send(put(uri, etag, "versioned3@example.com"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(409, httpClient.send(put(uri, null, "versioned-other@example.com"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(409, httpClient.send(HttpRequest.newBuilder(uri).header("If-Match", etag).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        assertEquals(200, httpClient.send(HttpRequest.newBuilder(uri).header("If-Match", "\"1\"").DELETE().build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(404, httpClient.send(HttpRequest.newBuilder(uri).DELETE().build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private static HttpRequest put(URI uri, String ifMatch, String email) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"name\":\"Versioned\",\"email\":\"" + email + "\"}"));
+        if (ifMatch != null) {
+            builder.header("If-Match", ifMatch);
+        }
+        return builder.build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condição não atingida em 30 s");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+}
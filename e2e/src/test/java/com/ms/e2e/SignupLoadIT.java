@@ -0,0 +1,152 @@
+package com.ms.e2e;
+
+import com.ms.e2e.support.DeliveryTracker;
+import com.ms.e2e.support.E2eEnvironment;
+import com.ms.e2e.support.SignupClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives signups at a fixed rate for a fixed time and reports sustained throughput,
+ * signup-to-delivery latency percentiles and how the backlog evolves. Run with
+ * {@code mvn verify -Pperf}; tune with:
+ * <ul>
+ *     <li>{@code perf.rate}: signups per second offered (default 200);</li>
+ *     <li>{@code perf.duration-seconds}: length of the load phase (default 30);</li>
+ *     <li>{@code perf.concurrency}: maximum signups in flight; beyond it the offered rate is not met (default 256);</li>
+ *     <li>{@code perf.drain-timeout-seconds}: how long to wait for outstanding emails afterwards (default 120).</li>
+ * </ul>
+ * The report is printed and written to {@code target/e2e-load-report.txt}.
+ */
+class SignupLoadIT {
+
+    private static final int RATE = Integer.getInteger("perf.rate", 200);
+    private static final int DURATION_SECONDS = Integer.getInteger("perf.duration-seconds", 30);
+    private static final int CONCURRENCY = Integer.getInteger("perf.concurrency", 256);
+    private static final int DRAIN_TIMEOUT_SECONDS = Integer.getInteger("perf.drain-timeout-seconds", 120);
+
+    private static E2eEnvironment environment;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        environment = new E2eEnvironment();
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (environment != null) {
+            environment.close();
+        }
+    }
+
+    @Test
+    void sustainedSignupLoad() throws Exception {
+        DeliveryTracker deliveries = environment.deliveries();
+        SignupClient signupClient = new SignupClient(environment);
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        AtomicLong sequence = new AtomicLong();
+        StringBuilder report = new StringBuilder();
+
+        line(report, "Carga: %d cadastros/s por %d s, até %d em andamento", RATE, DURATION_SECONDS, CONCURRENCY);
+        line(report, "%6s %10s %10s %10s %10s %10s", "t(s)", "aceitos/s", "entregues/s", "pendentes", "fila", "outbox");
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        var generator = scheduler.scheduleAtFixedRate(() -> {
+            if (!inFlight.tryAcquire()) {
+                skipped.incrementAndGet();
+                return;
+            }
+            long n = sequence.incrementAndGet();
+            signupClient.signup("Load User " + n, "load-" + n + "@example.com")
+                    .whenComplete((status, error) -> {
+                        inFlight.release();
+                        (status != null && status == 201 ? accepted : rejected).incrementAndGet();
+                    });
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+        long start = System.nanoTime();
+        long previousAccepted = 0;
+        long previousDelivered = 0;
+        long pendingAtStart = deliveries.pending();
+        long peakQueue = 0;
+        long peakOutbox = 0;
+        for (int second = 1; second <= DURATION_SECONDS; second++) {
+            sleepUntil(start + TimeUnit.SECONDS.toNanos(second));
+            long queue = environment.queueDepth();
+            long outbox = environment.outboxSize();
+            peakQueue = Math.max(peakQueue, queue);
+            peakOutbox = Math.max(peakOutbox, outbox);
+            line(report, "%6d %10d %10d %10d %10d %10d", second, accepted.get() - previousAccepted,
+                    deliveries.delivered() - previousDelivered, deliveries.pending(), queue, outbox);
+            previousAccepted = accepted.get();
+            previousDelivered = deliveries.delivered();
+        }
+        generator.cancel(false);
+        long loadNanos = System.nanoTime() - start;
+        long pendingAtEnd = deliveries.pending();
+        long deliveredDuringLoad = deliveries.delivered();
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+        while ((deliveries.pending() > 0 || inFlight.availablePermits() < CONCURRENCY) && System.nanoTime() < drainDeadline) {
+            Thread.sleep(100);
+        }
+        long totalNanos = System.nanoTime() - start;
+        scheduler.shutdownNow();
+
+        double loadSeconds = loadNanos / 1e9;
+        line(report, "");
+        line(report, "Cadastros aceitos:          %d (%.1f/s sustentados)", accepted.get(), accepted.get() / loadSeconds);
+        line(report, "Cadastros recusados:        %d", rejected.get());
+        line(report, "Não enviados (saturação):   %d", skipped.get());
+        line(report, "Emails entregues na carga:  %d (%.1f/s)", deliveredDuringLoad, deliveredDuringLoad / loadSeconds);
+        line(report, "Emails entregues no total:  %d em %.1f s", deliveries.delivered(), totalNanos / 1e9);
+        line(report, "Latência cadastro→entrega:  p50 %.1f ms, p99 %.1f ms, máx %.1f ms",
+                deliveries.percentileMillis(50), deliveries.percentileMillis(99), deliveries.percentileMillis(100));
+        line(report, "Crescimento do backlog:     %.1f emails/s (pendentes %d → %d)",
+                (pendingAtEnd - pendingAtStart) / loadSeconds, pendingAtStart, pendingAtEnd);
+        line(report, "Pico da fila / do outbox:   %d / %d", peakQueue, peakOutbox);
+        line(report, "Pendentes após a drenagem:  %d", deliveries.pending());
+
+        System.out.print(report);
+        Path target = Path.of("target");
+        if (Files.isDirectory(target)) {
+            writeReport(target.resolve("e2e-load-report.txt"), report);
+        }
+
+        assertEquals(0, rejected.get(), "cadastros recusados");
+        assertEquals(0, deliveries.pending(), "emails não entregues após a drenagem");
+        assertEquals(0, deliveries.unexpected(), "emails inesperados");
+    }
+
+    private static void line(StringBuilder report, String format, Object... args) {
+        report.append(String.format(Locale.ROOT, format, args)).append(System.lineSeparator());
+    }
+
+    private static void sleepUntil(long deadlineNanos) throws InterruptedException {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    private static void writeReport(Path path, StringBuilder report) throws IOException {
+        Files.writeString(path, report);
+    }
+}
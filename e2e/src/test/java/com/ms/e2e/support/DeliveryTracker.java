@@ -0,0 +1,79 @@
+package com.ms.e2e.support;
+
+import com.icegreen.greenmail.user.MessageDeliveryHandler;
+import com.icegreen.greenmail.user.UserManager;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Correlates signups with the welcome email GreenMail receives for the same address. Delivery is
+ * timestamped inside GreenMail's delivery handler, so the latency does not include any polling.
+ */
+public class DeliveryTracker {
+
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong unexpected = new AtomicLong();
+    private volatile long[] latencies = new long[1024];
+    private int latencyCount;
+
+    void attachTo(UserManager userManager) {
+        MessageDeliveryHandler delegate = userManager.getMessageDeliveryHandler();
+        userManager.setMessageDeliveryHandler((message, address) -> {
+            onDelivered(address.getEmail());
+            return delegate.handle(message, address);
+        });
+    }
+
+    public void signupStarted(String email) {
+        pending.put(email, System.nanoTime());
+    }
+
+    /** The signup was rejected, so no email is expected. */
+    public void signupFailed(String email) {
+        pending.remove(email);
+    }
+
+    private void onDelivered(String email) {
+        Long start = pending.remove(email);
+        if (start == null) {
+            unexpected.incrementAndGet();
+            return;
+        }
+        record(System.nanoTime() - start);
+        delivered.incrementAndGet();
+    }
+
+    private synchronized void record(long latencyNanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencyCount * 2);
+        }
+        latencies[latencyCount++] = latencyNanos;
+    }
+
+    public long delivered() {
+        return delivered.get();
+    }
+
+    public long pending() {
+        return pending.size();
+    }
+
+    public long unexpected() {
+        return unexpected.get();
+    }
+
+    /** Nearest-rank percentile in milliseconds, {@code NaN} before the first delivery. */
+    public synchronized double percentileMillis(double percentile) {
+        if (latencyCount == 0) {
+            return Double.NaN;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,143 @@
+package com.ms.e2e.support;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.ms.email.EmailApplication;
+import com.ms.user.UserApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Boots {@link UserApplication} and {@link EmailApplication} in this JVM against local stand-ins:
+ * an embedded PostgreSQL with one database per service, an in-memory AMQP 0-9-1 broker and a
+ * GreenMail SMTP sink. Nothing leaves the machine.
+ * <p>
+ * Each service reads {@code e2e-user.properties} / {@code e2e-email.properties} instead of its
+ * own {@code application.properties} (both jars ship one at the same classpath location). System
+ * properties prefixed with {@code e2e.user.} or {@code e2e.email.} are passed to that service with
+ * the prefix removed, e.g. {@code -De2e.email.broker.consumer.batch.enabled=true}.
+ */
+public class E2eEnvironment implements AutoCloseable {
+
+    public static final String QUEUE = "emails.e2e";
+
+    private final EmbeddedPostgres postgres;
+    private final EmbeddedBroker broker;
+    private final GreenMail greenMail;
+    private final DeliveryTracker deliveryTracker = new DeliveryTracker();
+    private final ConfigurableApplicationContext emailContext;
+    private final ConfigurableApplicationContext userContext;
+
+    public E2eEnvironment() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        createDatabases("ms_user", "ms_email");
+        broker = new EmbeddedBroker(freePort());
+        greenMail = new GreenMail(new ServerSetup(0, "localhost", ServerSetup.PROTOCOL_SMTP).dynamicPort());
+        greenMail.start();
+        deliveryTracker.attachTo(greenMail.getUserManager());
+
+        Map<String, Object> common = new HashMap<>();
+        common.put("server.port", 0);
+        common.put("spring.datasource.username", "postgres");
+        common.put("spring.datasource.password", "postgres");
+        common.put("spring.rabbitmq.addresses", broker.address());
+        common.put("broker.queue.email.name", QUEUE);
+        common.put("spring.threads.virtual.enabled", System.getProperty("e2e.virtual-threads", "false"));
+
+        // The email service declares the queue, so it starts first.
+        Map<String, Object> email = new HashMap<>(common);
+        email.put("spring.config.name", "e2e-email");
+        email.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "ms_email") + "&reWriteBatchedInserts=true");
+        email.put("spring.mail.host", "localhost");
+        email.put("spring.mail.port", greenMail.getSmtp().getPort());
+        email.putAll(overrides("e2e.email."));
+        emailContext = new SpringApplicationBuilder(EmailApplication.class).properties(email).run();
+
+        Map<String, Object> user = new HashMap<>(common);
+        user.put("spring.config.name", "e2e-user");
+        user.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "ms_user"));
+        user.putAll(overrides("e2e.user."));
+        userContext = new SpringApplicationBuilder(UserApplication.class).properties(user).run();
+    }
+
+    public String userServiceUrl() {
+        int port = ((WebServerApplicationContext) userContext).getWebServer().getPort();
+        return "http://localhost:" + port;
+    }
+
+    public String emailServiceUrl() {
+        int port = ((WebServerApplicationContext) emailContext).getWebServer().getPort();
+        return "http://localhost:" + port;
+    }
+
+    public DeliveryTracker deliveries() {
+        return deliveryTracker;
+    }
+
+    public ConfigurableApplicationContext userContext() {
+        return userContext;
+    }
+
+    public ConfigurableApplicationContext emailContext() {
+        return emailContext;
+    }
+
+    /** Messages waiting in the email queue. */
+    public long queueDepth() {
+        QueueInformation info = emailContext.getBean(AmqpAdmin.class).getQueueInfo(QUEUE);
+        return info != null ? info.getMessageCount() : 0;
+    }
+
+    /** Welcome emails committed in the user service but not yet confirmed by the broker. */
+    public long outboxSize() {
+        Long count = userContext.getBean(JdbcTemplate.class).queryForObject("SELECT count(*) FROM tb_outbox", Long.class);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public void close() throws Exception {
+        userContext.close();
+        emailContext.close();
+        greenMail.stop();
+        broker.close();
+        postgres.close();
+    }
+
+    private void createDatabases(String... names) throws SQLException {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String name : names) {
+                statement.execute("CREATE DATABASE " + name);
+            }
+        }
+    }
+
+    private static Map<String, Object> overrides(String prefix) {
+        Map<String, Object> overrides = new HashMap<>();
+        System.getProperties().forEach((key, value) -> {
+            if (key.toString().startsWith(prefix)) {
+                overrides.put(key.toString().substring(prefix.length()), value);
+            }
+        });
+        return overrides;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
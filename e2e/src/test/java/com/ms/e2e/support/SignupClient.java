@@ -0,0 +1,41 @@
+package com.ms.e2e.support;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/** Posts signups to the user service and registers each one with the {@link DeliveryTracker}. */
+public class SignupClient {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final URI usersUri;
+    private final DeliveryTracker deliveryTracker;
+
+    public SignupClient(E2eEnvironment environment) {
+        this.usersUri = URI.create(environment.userServiceUrl() + "/users");
+        this.deliveryTracker = environment.deliveries();
+    }
+
+    /** Completes with the HTTP status; a 201 means a welcome email is expected. */
+    public CompletableFuture<Integer> signup(String name, String email) {
+        HttpRequest request = HttpRequest.newBuilder(usersUri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"" + name + "\",\"email\":\"" + email + "\"}"))
+                .build();
+        deliveryTracker.signupStarted(email);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    int status = error == null ? response.statusCode() : -1;
+                    if (status != 201) {
+                        deliveryTracker.signupFailed(email);
+                    }
+                    return status;
+                });
+    }
+}
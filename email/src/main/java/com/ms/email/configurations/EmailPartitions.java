@@ -0,0 +1,43 @@
+package com.ms.email.configurations;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.IntStream;
+
+/**
+ * Names the email queues. With a single partition there is only {@code broker.queue.email.name}.
+ * With N partitions the queues are {@code <name>.0} to {@code <name>.N-1}; which instance consumes
+ * each one is decided by {@link com.ms.email.consumer.PartitionOwnership}.
+ */
+@Component("emailPartitions")
+public class EmailPartitions {
+
+    final String queue;
+    final int partitions;
+
+    public EmailPartitions(@Value("${broker.queue.email.name}") String queue,
+                           @Value("${broker.queue.email.partitions:1}") int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("broker.queue.email.partitions deve ser pelo menos 1");
+        }
+        this.queue = queue;
+        this.partitions = partitions;
+    }
+
+    public boolean isPartitioned() {
+        return partitions > 1;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public String queueName(int partition) {
+        return isPartitioned() ? queue + "." + partition : queue;
+    }
+
+    public String[] allQueues() {
+        return IntStream.range(0, partitions).mapToObj(this::queueName).toArray(String[]::new);
+    }
+}
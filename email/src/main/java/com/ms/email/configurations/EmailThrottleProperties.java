@@ -0,0 +1,40 @@
+package com.ms.email.configurations;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.Map;
+
+/**
+ * Per-recipient-domain send limits, e.g.
+ * <pre>
+ * email.throttle.default-limit.rate-per-second=10
+ * email.throttle.domains[gmail.com].rate-per-second=20
+ * email.throttle.domains[gmail.com].burst=40
+ * </pre>
+ * Domains without an entry share nothing: each gets its own bucket with the default limit.
+ * Rates and bursts must be positive; the service does not start otherwise.
+ */
+@ConfigurationProperties(prefix = "email.throttle")
+@Validated
+public record EmailThrottleProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue @Valid Limit defaultLimit,
+        Map<String, @Valid Limit> domains) {
+
+    public EmailThrottleProperties {
+        domains = domains != null ? Map.copyOf(domains) : Map.of();
+    }
+
+    public Limit limitFor(String domain) {
+        return domains.getOrDefault(domain, defaultLimit);
+    }
+
+    public record Limit(
+            @DefaultValue("10") @Positive double ratePerSecond,
+            @DefaultValue("20") @Positive int burst) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.ms.email.configurations;
+
+import com.ms.email.senders.PooledJavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Properties;
+
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    @Value("${email.smtp.pool.size:4}")
+    private int poolSize;
+
+    @Value("${email.smtp.pool.idle-timeout-ms:60000}")
+    private long idleTimeout;
+
+    @Value("${email.smtp.pool.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${email.smtp.pool.validate-after-idle-ms:5000}")
+    private long validateAfterIdle;
+
+    @Bean
+    @ConditionalOnProperty(name = "email.smtp.pool.enabled", havingValue = "true")
+    public PooledJavaMailSender mailSender(MailProperties mailProperties) {
+        var sender = new PooledJavaMailSender(poolSize, idleTimeout, maxMessagesPerConnection, validateAfterIdle);
+        sender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            sender.setPort(mailProperties.getPort());
+        }
+        sender.setUsername(mailProperties.getUsername());
+        sender.setPassword(mailProperties.getPassword());
+        sender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.putAll(mailProperties.getProperties());
+        sender.setJavaMailProperties(javaMailProperties);
+        return sender;
+    }
+}
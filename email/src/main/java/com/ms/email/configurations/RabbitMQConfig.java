@@ -1,21 +1,60 @@
 package com.ms.email.configurations;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.email.converters.BinaryEmailMessageConverter;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
 
 @Configuration
 public class RabbitMQConfig {
 
-    @Value("${broker.queue.email.name}")
-    private String queue;
+    @Value("${broker.exchange.email.name:}")
+    private String exchange;
+
+    @Value("${broker.consumer.batch.size:50}")
+    private int batchSize;
+
+    @Value("${broker.consumer.batch.receive-timeout-ms:1000}")
+    private long batchReceiveTimeout;
 
+    /**
+     * One durable queue, or with partitions a direct exchange binding each partition number to its
+     * single-active-consumer queue. Every instance declares every partition; each one consumes the
+     * partitions it holds a lease on.
+     */
     @Bean
-    public Queue queue() {
-        return new Queue(queue, true);
+    public Declarables emailTopology(EmailPartitions emailPartitions) {
+        if (!emailPartitions.isPartitioned()) {
+            return new Declarables(new Queue(emailPartitions.queueName(0), true));
+        }
+        var declarables = new ArrayList<Declarable>();
+        var directExchange = new DirectExchange(exchange, true, false);
+        declarables.add(directExchange);
+        for (int partition = 0; partition < emailPartitions.getPartitions(); partition++) {
+            Queue partitionQueue = QueueBuilder.durable(emailPartitions.queueName(partition))
+                    .singleActiveConsumer()
+                    .build();
+            declarables.add(partitionQueue);
+            declarables.add(BindingBuilder.bind(partitionQueue).to(directExchange).with(String.valueOf(partition)));
+        }
+        return new Declarables(declarables);
     }
 
     @Bean
@@ -23,4 +62,38 @@ public class RabbitMQConfig {
         ObjectMapper objectMapper = new ObjectMapper();
         return new Jackson2JsonMessageConverter(objectMapper);
     }
-}
\ No newline at end of file
+
+    @Bean
+    public BinaryEmailMessageConverter binaryMessageConverter() {
+        return new BinaryEmailMessageConverter();
+    }
+
+    /**
+     * Picks the decoder from the message content type, so producers can switch between
+     * JSON and the binary codec without coordinating a deploy with this service.
+     */
+    @Bean
+    @Primary
+    public ContentTypeDelegatingMessageConverter rabbitMessageConverter(Jackson2JsonMessageConverter messageConverter,
+                                                                        BinaryEmailMessageConverter binaryMessageConverter) {
+        var converter = new ContentTypeDelegatingMessageConverter(messageConverter);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, messageConverter);
+        converter.addDelegate(BinaryEmailMessageConverter.CONTENT_TYPE, binaryMessageConverter);
+        return converter;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "broker.consumer.batch.enabled", havingValue = "true")
+    public SimpleRabbitListenerContainerFactory batchListenerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                     ConnectionFactory connectionFactory) {
+        var factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(batchReceiveTimeout);
+        // A batch can only fill up if the broker is allowed to push at least that many unacked messages.
+        factory.setPrefetchCount(batchSize);
+        return factory;
+    }
+}
@@ -0,0 +1,78 @@
+package com.ms.email.consumer;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.mappers.EmailMapper;
+import com.ms.email.metrics.EmailMetrics;
+import com.ms.email.models.EmailModel;
+import com.ms.email.services.EmailService;
+import com.ms.email.services.MessageDeduplicator;
+import com.ms.email.templates.EmailTemplateEngine;
+import com.ms.email.templates.RenderedEmail;
+import com.ms.email.templates.TemplateNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "broker.consumer.batch.enabled", havingValue = "true")
+public class EmailBatchConsumer {
+
+    final EmailService emailService;
+    final EmailTemplateEngine emailTemplateEngine;
+    final MessageDeduplicator messageDeduplicator;
+    final EmailMapper emailMapper;
+    final EmailMetrics emailMetrics;
+
+    public EmailBatchConsumer(EmailService emailService,
+                              EmailTemplateEngine emailTemplateEngine,
+                              MessageDeduplicator messageDeduplicator,
+                              EmailMapper emailMapper,
+                              EmailMetrics emailMetrics) {
+        this.emailService = emailService;
+        this.emailTemplateEngine = emailTemplateEngine;
+        this.messageDeduplicator = messageDeduplicator;
+        this.emailMapper = emailMapper;
+        this.emailMetrics = emailMetrics;
+    }
+
+    /** Registered as the email queue listener by {@link EmailListenerConfigurer}. */
+    public void listenEmailQueue(List<Message<EmailRecordDto>> messages) {
+        List<String> messageIds = new ArrayList<>(messages.size());
+        List<EmailModel> emailModels = new ArrayList<>(messages.size());
+        List<Long> producedAts = new ArrayList<>(messages.size());
+        for (Message<EmailRecordDto> message : messages) {
+            EmailRecordDto emailRecordDto = message.getPayload();
+            String messageId = message.getHeaders().get(AmqpHeaders.MESSAGE_ID, String.class);
+            emailMetrics.recordDelivered(message.getHeaders().get(EmailMetrics.PUBLISHED_AT_HEADER, Long.class));
+            if (messageId != null && messageDeduplicator.isDuplicate(messageId)) {
+                log.info("Mensagem {} já processada, reenvio ignorado", messageId);
+                continue;
+            }
+            var emailModel = emailMapper.toModel(emailRecordDto);
+            if (emailRecordDto.templateId() != null) {
+                try {
+                    RenderedEmail rendered = emailTemplateEngine.render(emailRecordDto.templateId(), emailRecordDto.variables());
+                    emailModel.setSubject(rendered.subject());
+                    emailModel.setText(rendered.text());
+                } catch (TemplateNotFoundException e) {
+                    // Rejecting would take the rest of the batch down with it.
+                    log.error("Email para o usuário {} descartado: {}", emailRecordDto.userId(), e.getMessage());
+                    continue;
+                }
+            }
+            messageIds.add(messageId);
+            emailModels.add(emailModel);
+            producedAts.add(message.getHeaders().get(EmailMetrics.PRODUCED_AT_HEADER, Long.class));
+        }
+        if (!emailModels.isEmpty()) {
+            emailService.sendEmails(messageIds, emailModels);
+            producedAts.forEach(emailMetrics::recordProcessed);
+        }
+    }
+}
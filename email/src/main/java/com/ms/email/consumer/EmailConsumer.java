@@ -1,26 +1,66 @@
 package com.ms.email.consumer;
 
 import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.mappers.EmailMapper;
+import com.ms.email.metrics.EmailMetrics;
 import com.ms.email.models.EmailModel;
 import com.ms.email.services.EmailService;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.beans.BeanUtils;
+import com.ms.email.services.MessageDeduplicator;
+import com.ms.email.templates.EmailTemplateEngine;
+import com.ms.email.templates.RenderedEmail;
+import com.ms.email.templates.TemplateNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
 @Component
+@Slf4j
+@ConditionalOnProperty(name = "broker.consumer.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class EmailConsumer {
 
     final EmailService emailService;
+    final EmailTemplateEngine emailTemplateEngine;
+    final MessageDeduplicator messageDeduplicator;
+    final EmailMapper emailMapper;
+    final EmailMetrics emailMetrics;
 
-    public EmailConsumer(EmailService emailService) {
+    public EmailConsumer(EmailService emailService,
+                         EmailTemplateEngine emailTemplateEngine,
+                         MessageDeduplicator messageDeduplicator,
+                         EmailMapper emailMapper,
+                         EmailMetrics emailMetrics) {
         this.emailService = emailService;
+        this.emailTemplateEngine = emailTemplateEngine;
+        this.messageDeduplicator = messageDeduplicator;
+        this.emailMapper = emailMapper;
+        this.emailMetrics = emailMetrics;
     }
 
-    @RabbitListener(queues = "${broker.queue.email.name}")
-    public void listenEmailQueue(@Payload EmailRecordDto emailRecordDto) {
-        var emailModel = new EmailModel();
-        BeanUtils.copyProperties(emailRecordDto, emailModel);
-        emailService.sendEmail(emailModel);
+    /** Registered as the email queue listener by {@link EmailListenerConfigurer}. */
+    public void listenEmailQueue(@Payload EmailRecordDto emailRecordDto,
+                                 @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId,
+                                 @Header(name = EmailMetrics.PRODUCED_AT_HEADER, required = false) Long producedAt,
+                                 @Header(name = EmailMetrics.PUBLISHED_AT_HEADER, required = false) Long publishedAt) {
+        emailMetrics.recordDelivered(publishedAt);
+        if (messageId != null && messageDeduplicator.isDuplicate(messageId)) {
+            log.info("Mensagem {} já processada, reenvio ignorado", messageId);
+            return;
+        }
+        var emailModel = emailMapper.toModel(emailRecordDto);
+        if (emailRecordDto.templateId() != null) {
+            try {
+                RenderedEmail rendered = emailTemplateEngine.render(emailRecordDto.templateId(), emailRecordDto.variables());
+                emailModel.setSubject(rendered.subject());
+                emailModel.setText(rendered.text());
+            } catch (TemplateNotFoundException e) {
+                throw new AmqpRejectAndDontRequeueException(e);
+            }
+        }
+        emailService.sendEmail(messageId, emailModel);
+        emailMetrics.recordProcessed(producedAt);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.ms.email.consumer;
+
+import com.ms.email.configurations.EmailPartitions;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Registers the email listener containers for whichever consumer is active. Without partitions
+ * there is one container, {@link ListenerAutoscaler#LISTENER_ID}, with the factory's concurrency.
+ * With partitions there is one container with a single consumer per partition queue,
+ * {@code emailListener-<p>}; they do not start with the context, {@link PartitionOwnership} starts
+ * the ones whose partitions this instance holds.
+ */
+@Component
+public class EmailListenerConfigurer implements RabbitListenerConfigurer {
+
+    static final String LISTENER_METHOD = "listenEmailQueue";
+
+    final EmailPartitions emailPartitions;
+    final ObjectProvider<EmailConsumer> emailConsumer;
+    final ObjectProvider<EmailBatchConsumer> emailBatchConsumer;
+    final BeanFactory beanFactory;
+
+    public EmailListenerConfigurer(EmailPartitions emailPartitions,
+                                   ObjectProvider<EmailConsumer> emailConsumer,
+                                   ObjectProvider<EmailBatchConsumer> emailBatchConsumer,
+                                   BeanFactory beanFactory) {
+        this.emailPartitions = emailPartitions;
+        this.emailConsumer = emailConsumer;
+        this.emailBatchConsumer = emailBatchConsumer;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        EmailBatchConsumer batchConsumer = emailBatchConsumer.getIfAvailable();
+        Object consumer = batchConsumer != null ? batchConsumer : emailConsumer.getObject();
+        String factoryName = batchConsumer != null ? "batchListenerFactory" : "rabbitListenerContainerFactory";
+        Method method = ReflectionUtils.findMethod(consumer.getClass(), LISTENER_METHOD, (Class<?>[]) null);
+        Assert.state(method != null, () -> consumer.getClass().getName() + " não tem o método " + LISTENER_METHOD);
+        RabbitListenerContainerFactory<?> factory = beanFactory.getBean(factoryName, RabbitListenerContainerFactory.class);
+
+        var handlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        handlerMethodFactory.setBeanFactory(beanFactory);
+        handlerMethodFactory.afterPropertiesSet();
+
+        if (!emailPartitions.isPartitioned()) {
+            registrar.registerEndpoint(endpoint(ListenerAutoscaler.LISTENER_ID, emailPartitions.queueName(0), null, true,
+                    consumer, method, batchConsumer != null, handlerMethodFactory), factory);
+            return;
+        }
+        for (int partition = 0; partition < emailPartitions.getPartitions(); partition++) {
+            registrar.registerEndpoint(endpoint(PartitionOwnership.containerId(partition), emailPartitions.queueName(partition), "1", false,
+                    consumer, method, batchConsumer != null, handlerMethodFactory), factory);
+        }
+    }
+
+    private MethodRabbitListenerEndpoint endpoint(String id, String queue, String concurrency, boolean autoStartup, Object consumer,
+                                                  Method method, boolean batch, DefaultMessageHandlerMethodFactory handlerMethodFactory) {
+        var endpoint = new MethodRabbitListenerEndpoint();
+        endpoint.setId(id);
+        endpoint.setQueueNames(queue);
+        endpoint.setConcurrency(concurrency);
+        endpoint.setAutoStartup(autoStartup);
+        endpoint.setBean(consumer);
+        endpoint.setMethod(method);
+        endpoint.setBatchListener(batch);
+        endpoint.setBeanFactory(beanFactory);
+        endpoint.setMessageHandlerMethodFactory(handlerMethodFactory);
+        return endpoint;
+    }
+}
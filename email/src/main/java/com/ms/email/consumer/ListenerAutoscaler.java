@@ -0,0 +1,261 @@
+package com.ms.email.consumer;
+
+import com.ms.email.configurations.EmailPartitions;
+import com.ms.email.metrics.EmailMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adjusts the email listener's consumer count and prefetch from the queue depth and the SMTP
+ * latency observed since the previous tick:
+ * <ul>
+ *     <li>SMTP slower than {@code latency-high-ms}: one consumer fewer, since more parallel sends
+ *     only add to the provider's load;</li>
+ *     <li>more than {@code backlog-per-consumer} messages waiting per consumer: one consumer more;</li>
+ *     <li>queue empty for {@code idle-ticks} ticks in a row: one consumer fewer.</li>
+ * </ul>
+ * Prefetch is sized so each consumer holds roughly {@code target-buffer-ms} of work at the current
+ * per-message latency; slow sends therefore shrink it and messages are not hoarded by a stuck consumer.
+ * A new value is only adopted when it differs from the current one by a factor of two or more.
+ * Consumers read the prefetch when they open their channel, so consumers added later use the new
+ * value at once. The running ones are restarted only once the listener is idle, because a restart
+ * sends their unacknowledged messages back to the queue.
+ * <p>
+ * Partitioned queues are left alone. Per-user ordering needs exactly one consumer per partition, so
+ * there is no consumer count to scale. Under single active consumer, nobody else could take the
+ * messages that consumer prefetches either. Throughput there grows with partitions and instances.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "email.autoscaler.enabled", havingValue = "true")
+public class ListenerAutoscaler {
+
+    public static final String LISTENER_ID = "emailListener";
+    private static final int HISTORY_SIZE = 20;
+
+    final RabbitListenerEndpointRegistry listenerRegistry;
+    final AmqpAdmin amqpAdmin;
+    final String queue;
+    final boolean partitioned;
+    final Timer smtpMessage;
+    final Counter scaleUps;
+    final Counter scaleDowns;
+    final Deque<ScalingDecision> history = new ArrayDeque<>(HISTORY_SIZE);
+
+    private volatile int consumers;
+    private volatile int prefetch;
+    private int appliedPrefetch;
+    private int idleTicks;
+    private long lastSmtpCount;
+    private double lastSmtpTotalMs;
+
+    public ListenerAutoscaler(RabbitListenerEndpointRegistry listenerRegistry,
+                              AmqpAdmin amqpAdmin,
+                              EmailPartitions emailPartitions,
+                              EmailMetrics emailMetrics,
+                              MeterRegistry meterRegistry) {
+        this.listenerRegistry = listenerRegistry;
+        this.amqpAdmin = amqpAdmin;
+        this.queue = emailPartitions.queueName(0);
+        this.partitioned = emailPartitions.isPartitioned();
+        this.smtpMessage = emailMetrics.smtpMessageTimer();
+        this.scaleUps = meterRegistry.counter("email.listener.scaling", "direction", "up");
+        this.scaleDowns = meterRegistry.counter("email.listener.scaling", "direction", "down");
+        Gauge.builder("email.listener.consumers", this, autoscaler -> autoscaler.consumers)
+                .description("Consumidores definidos pelo autoscaler")
+                .register(meterRegistry);
+        Gauge.builder("email.listener.prefetch", this, autoscaler -> autoscaler.prefetch)
+                .description("Prefetch definido pelo autoscaler")
+                .register(meterRegistry);
+        if (partitioned) {
+            log.info("Autoscaler do listener inativo: filas particionadas usam um consumidor por partição");
+        }
+    }
+
+    @Value(value = "${email.autoscaler.min-consumers:1}")
+    private int minConsumers;
+
+    // More parallel consumers than pooled SMTP connections would only queue on the pool.
+    @Value(value = "${email.autoscaler.max-consumers:${email.smtp.pool.size:4}}")
+    private int maxConsumers;
+
+    @Value(value = "${email.autoscaler.min-prefetch:1}")
+    private int minPrefetch;
+
+    @Value(value = "${email.autoscaler.max-prefetch:250}")
+    private int maxPrefetch;
+
+    @Value(value = "${email.autoscaler.backlog-per-consumer:100}")
+    private long backlogPerConsumer;
+
+    @Value(value = "${email.autoscaler.latency-high-ms:2000}")
+    private double latencyHighMs;
+
+    @Value(value = "${email.autoscaler.target-buffer-ms:1000}")
+    private double targetBufferMs;
+
+    @Value(value = "${email.autoscaler.idle-ticks:6}")
+    private int idleTicksToScaleDown;
+
+    @Value(value = "${spring.rabbitmq.listener.simple.prefetch:250}")
+    private int initialPrefetch;
+
+    @Value(value = "${broker.consumer.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value(value = "${broker.consumer.batch.size:50}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${email.autoscaler.interval-ms:5000}")
+    public void tick() {
+        if (partitioned) {
+            return;
+        }
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (!(container instanceof SimpleMessageListenerContainer simpleContainer) || !container.isRunning()) {
+            return;
+        }
+        QueueInformation queueInformation = amqpAdmin.getQueueInfo(queue);
+        if (queueInformation == null) {
+            return;
+        }
+        long queueDepth = queueInformation.getMessageCount();
+        if (consumers == 0) {
+            consumers = Math.max(1, simpleContainer.getActiveConsumerCount());
+            prefetch = batchEnabled ? batchSize : initialPrefetch;
+            appliedPrefetch = prefetch;
+        }
+
+        double smtpLatencyMs = recentSmtpLatencyMs();
+        ScalingDecision decision = decide(queueDepth, smtpLatencyMs);
+        if (decision != null) {
+            if (decision.consumers() > consumers) {
+                scaleUps.increment();
+            } else if (decision.consumers() < consumers) {
+                scaleDowns.increment();
+            }
+            apply(simpleContainer, decision);
+        }
+        // Nothing waiting and nothing sent for a whole tick: the consumers hold no messages a restart would requeue.
+        if (appliedPrefetch != prefetch && queueDepth == 0 && Double.isNaN(smtpLatencyMs)) {
+            simpleContainer.stop();
+            simpleContainer.start();
+            appliedPrefetch = prefetch;
+            log.info("Listener reiniciado ocioso para aplicar o prefetch {}", prefetch);
+        }
+    }
+
+    /** Returns {@code null} when nothing should change. */
+    ScalingDecision decide(long queueDepth, double smtpLatencyMs) {
+        int targetConsumers = consumers;
+        String reason;
+        if (queueDepth == 0) {
+            idleTicks++;
+        } else {
+            idleTicks = 0;
+        }
+
+        if (!Double.isNaN(smtpLatencyMs) && smtpLatencyMs > latencyHighMs) {
+            targetConsumers--;
+            reason = "latência SMTP alta";
+        } else if (queueDepth > backlogPerConsumer * consumers) {
+            targetConsumers++;
+            reason = "backlog";
+        } else if (idleTicks >= idleTicksToScaleDown) {
+            targetConsumers--;
+            idleTicks = 0;
+            reason = "fila vazia";
+        } else {
+            reason = "ajuste de prefetch";
+        }
+        targetConsumers = Math.max(minConsumers, Math.min(maxConsumers, targetConsumers));
+
+        int targetPrefetch = prefetch;
+        if (!Double.isNaN(smtpLatencyMs) && smtpLatencyMs > 0) {
+            // A batch only fills up if the broker may push at least a whole batch.
+            int floor = batchEnabled ? Math.max(minPrefetch, batchSize) : minPrefetch;
+            long sized = (long) Math.ceil(targetBufferMs / smtpLatencyMs);
+            int sizedPrefetch = (int) Math.max(floor, Math.min(Math.max(floor, maxPrefetch), sized));
+            if (sizedPrefetch >= 2L * prefetch || 2L * sizedPrefetch <= prefetch) {
+                targetPrefetch = sizedPrefetch;
+            }
+        }
+
+        if (targetConsumers == consumers && targetPrefetch == prefetch) {
+            return null;
+        }
+        return new ScalingDecision(Instant.now(), targetConsumers, targetPrefetch, queueDepth, smtpLatencyMs, reason);
+    }
+
+    private void apply(SimpleMessageListenerContainer container, ScalingDecision decision) {
+        if (decision.consumers() > consumers) {
+            container.setMaxConcurrentConsumers(decision.consumers());
+            container.setConcurrentConsumers(decision.consumers());
+        } else if (decision.consumers() < consumers) {
+            container.setConcurrentConsumers(decision.consumers());
+            container.setMaxConcurrentConsumers(decision.consumers());
+        }
+        if (decision.prefetch() != prefetch) {
+            // Only consumers started from now on pick it up; tick() restarts the others once idle.
+            container.setPrefetchCount(decision.prefetch());
+        }
+        consumers = decision.consumers();
+        prefetch = decision.prefetch();
+        record(decision);
+        log.info("Autoscaler do listener: {} consumidor(es), prefetch {} ({}, fila {}, SMTP {} ms)",
+                decision.consumers(), decision.prefetch(), decision.reason(), decision.queueDepth(),
+                Double.isNaN(decision.smtpLatencyMs()) ? "-" : String.format("%.0f", decision.smtpLatencyMs()));
+    }
+
+    // Mean per message since the previous tick, so batch sends compare with single ones; NaN when nothing was sent.
+    private double recentSmtpLatencyMs() {
+        long count = smtpMessage.count();
+        double totalMs = smtpMessage.totalTime(TimeUnit.MILLISECONDS);
+        long sends = count - lastSmtpCount;
+        double latency = sends > 0 ? (totalMs - lastSmtpTotalMs) / sends : Double.NaN;
+        lastSmtpCount = count;
+        lastSmtpTotalMs = totalMs;
+        return latency;
+    }
+
+    private void record(ScalingDecision decision) {
+        synchronized (history) {
+            if (history.size() == HISTORY_SIZE) {
+                history.removeFirst();
+            }
+            history.addLast(decision);
+        }
+    }
+
+    public int getConsumers() {
+        return consumers;
+    }
+
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    public List<ScalingDecision> getHistory() {
+        synchronized (history) {
+            return List.copyOf(history);
+        }
+    }
+}
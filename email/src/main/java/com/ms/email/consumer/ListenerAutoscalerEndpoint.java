@@ -0,0 +1,30 @@
+package com.ms.email.consumer;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/** Exposes the listener's current sizing and the most recent autoscaler decisions at /actuator/autoscaler. */
+@Component
+@Endpoint(id = "autoscaler")
+@ConditionalOnProperty(name = "email.autoscaler.enabled", havingValue = "true")
+public class ListenerAutoscalerEndpoint {
+
+    final ListenerAutoscaler listenerAutoscaler;
+
+    public ListenerAutoscalerEndpoint(ListenerAutoscaler listenerAutoscaler) {
+        this.listenerAutoscaler = listenerAutoscaler;
+    }
+
+    @ReadOperation
+    public AutoscalerState state() {
+        return new AutoscalerState(listenerAutoscaler.getConsumers(), listenerAutoscaler.getPrefetch(),
+                listenerAutoscaler.getHistory());
+    }
+
+    public record AutoscalerState(int consumers, int prefetch, List<ScalingDecision> decisions) {
+    }
+}
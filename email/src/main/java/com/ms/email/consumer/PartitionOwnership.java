@@ -0,0 +1,162 @@
+package com.ms.email.consumer;
+
+import com.ms.email.configurations.EmailPartitions;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads the partition queues over the running email instances with leases in Postgres. Every
+ * instance heartbeats into {@code tb_email_consumers}; the live instances, sorted by id, are owed
+ * {@code P / n} partitions each and the first {@code P % n} one more. On each tick an instance
+ * renews its leases in {@code tb_email_partition_owners}, gives back the partitions beyond its
+ * share, claims free or expired ones up to it, and then runs exactly the containers of the
+ * partitions it holds.
+ * <p>
+ * An instance that dies stops renewing, so its leases expire and the survivors claim them; a new
+ * instance lowers everybody's share and the others hand partitions over on their next tick. The
+ * queues stay single-active-consumer, so during a hand-over the new owner's consumer waits until
+ * the previous owner's has stopped and a partition is never consumed by two instances at once.
+ */
+@Component
+@Slf4j
+@ConditionalOnExpression("${broker.queue.email.partitions:1} > 1")
+public class PartitionOwnership {
+
+    final JdbcTemplate jdbcTemplate;
+    final RabbitListenerEndpointRegistry listenerRegistry;
+    final int partitions;
+    final TransactionTemplate transactionTemplate;
+
+    private volatile Set<Integer> owned = Set.of();
+    private long lastRenewal;
+
+    public PartitionOwnership(JdbcTemplate jdbcTemplate,
+                              RabbitListenerEndpointRegistry listenerRegistry,
+                              EmailPartitions emailPartitions,
+                              PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.listenerRegistry = listenerRegistry;
+        this.partitions = emailPartitions.getPartitions();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Value(value = "${broker.consumer.instance-id:${random.uuid}}")
+    private String instanceId;
+
+    // Several heartbeats, so one slow tick does not cost an instance its partitions.
+    @Value(value = "${broker.consumer.lease-ms:15000}")
+    private long leaseMs;
+
+    @Scheduled(fixedDelayString = "${broker.consumer.heartbeat-ms:5000}")
+    public void rebalance() {
+        Set<Integer> held;
+        try {
+            held = transactionTemplate.execute(status -> claimShare());
+            lastRenewal = System.nanoTime();
+        } catch (DataAccessException e) {
+            log.warn("Falha ao renovar as partições da instância {}: {}", instanceId, e.getMessage());
+            // Past the lease the partitions may already belong to another instance.
+            if (System.nanoTime() - lastRenewal < TimeUnit.MILLISECONDS.toNanos(leaseMs)) {
+                return;
+            }
+            held = Set.of();
+        }
+        apply(held);
+    }
+
+    /** Renews, releases and claims leases; returns the partitions this instance now holds. */
+    Set<Integer> claimShare() {
+        jdbcTemplate.update("INSERT INTO tb_email_consumers (instance_id, heartbeat_at) VALUES (?, now()) "
+                + "ON CONFLICT (instance_id) DO UPDATE SET heartbeat_at = now()", instanceId);
+        // Instances gone for good; their leases expired long ago.
+        jdbcTemplate.update("DELETE FROM tb_email_consumers WHERE heartbeat_at < now() - make_interval(secs => ? / 1000.0)",
+                leaseMs * 10);
+        jdbcTemplate.update("INSERT INTO tb_email_partition_owners (partition) "
+                + "SELECT generate_series(0, ? - 1) ON CONFLICT DO NOTHING", partitions);
+
+        List<String> live = jdbcTemplate.queryForList("SELECT instance_id FROM tb_email_consumers "
+                + "WHERE heartbeat_at > now() - make_interval(secs => ? / 1000.0) ORDER BY instance_id", String.class, leaseMs);
+        int share = shareOf(live.indexOf(instanceId), live.size(), partitions);
+
+        List<Integer> held = new ArrayList<>(jdbcTemplate.queryForList("UPDATE tb_email_partition_owners "
+                + "SET lease_until = now() + make_interval(secs => ? / 1000.0) "
+                + "WHERE instance_id = ? RETURNING partition", Integer.class, leaseMs, instanceId));
+        // Partitions beyond the configured count or the share go back, the highest first.
+        held.sort(Comparator.reverseOrder());
+        while (!held.isEmpty() && (held.size() > share || held.get(0) >= partitions)) {
+            jdbcTemplate.update("UPDATE tb_email_partition_owners SET instance_id = NULL, lease_until = NULL "
+                    + "WHERE partition = ? AND instance_id = ?", held.remove(0), instanceId);
+        }
+        if (held.size() < share) {
+            held.addAll(jdbcTemplate.queryForList("UPDATE tb_email_partition_owners "
+                    + "SET instance_id = ?, lease_until = now() + make_interval(secs => ? / 1000.0) "
+                    + "WHERE partition IN (SELECT partition FROM tb_email_partition_owners "
+                    + "WHERE partition < ? AND (instance_id IS NULL OR lease_until < now()) "
+                    + "ORDER BY partition LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING partition",
+                    Integer.class, instanceId, leaseMs, partitions, share - held.size()));
+        }
+        return new TreeSet<>(held);
+    }
+
+    static int shareOf(int rank, int liveInstances, int partitions) {
+        if (rank < 0) {
+            return 0;
+        }
+        return partitions / liveInstances + (rank < partitions % liveInstances ? 1 : 0);
+    }
+
+    private void apply(Set<Integer> held) {
+        for (int partition = 0; partition < partitions; partition++) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(containerId(partition));
+            if (container == null) {
+                continue;
+            }
+            if (held.contains(partition) && !container.isRunning()) {
+                container.start();
+                log.info("Partição {} assumida pela instância {}", partition, instanceId);
+            } else if (!held.contains(partition) && container.isRunning()) {
+                container.stop();
+                log.info("Partição {} liberada pela instância {}", partition, instanceId);
+            }
+        }
+        owned = held;
+    }
+
+    /** Hands the partitions over right away instead of after the lease; the containers are already stopped. */
+    @PreDestroy
+    public void release() {
+        try {
+            jdbcTemplate.update("UPDATE tb_email_partition_owners SET instance_id = NULL, lease_until = NULL "
+                    + "WHERE instance_id = ?", instanceId);
+            jdbcTemplate.update("DELETE FROM tb_email_consumers WHERE instance_id = ?", instanceId);
+        } catch (DataAccessException e) {
+            log.warn("Falha ao liberar as partições da instância {}: {}", instanceId, e.getMessage());
+        }
+        owned = Set.of();
+    }
+
+    static String containerId(int partition) {
+        return ListenerAutoscaler.LISTENER_ID + "-" + partition;
+    }
+
+    public Set<Integer> getOwned() {
+        return owned;
+    }
+}
@@ -0,0 +1,12 @@
+package com.ms.email.consumer;
+
+import java.time.Instant;
+
+public record ScalingDecision(
+        Instant at,
+        int consumers,
+        int prefetch,
+        long queueDepth,
+        double smtpLatencyMs,
+        String reason) {
+}
@@ -0,0 +1,40 @@
+package com.ms.email.controllers;
+
+import com.ms.email.dtos.EmailHistoryFilter;
+import com.ms.email.dtos.EmailPageDto;
+import com.ms.email.enums.StatusEmail;
+import com.ms.email.services.EmailHistoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/emails")
+@Slf4j
+public class EmailController {
+
+    final EmailHistoryService emailHistoryService;
+
+    public EmailController(EmailHistoryService emailHistoryService) {
+        this.emailHistoryService = emailHistoryService;
+    }
+
+    @GetMapping
+    public ResponseEntity<EmailPageDto> getEmails(@RequestParam(required = false) UUID userId,
+                                                  @RequestParam(required = false) StatusEmail status,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "20") int size) {
+        EmailPageDto page = emailHistoryService.getHistory(new EmailHistoryFilter(userId, status, from, to), cursor, size);
+        log.info("Encontrado(s) {} email(s)", page.emails().size());
+        return ResponseEntity.ok(page);
+    }
+}
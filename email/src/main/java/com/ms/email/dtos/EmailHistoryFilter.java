@@ -0,0 +1,18 @@
+package com.ms.email.dtos;
+
+import com.ms.email.enums.StatusEmail;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/** Optional filters for the email history; {@code from} is inclusive and {@code to} exclusive. */
+public record EmailHistoryFilter(
+        UUID userId,
+
+        StatusEmail statusEmail,
+
+        LocalDateTime from,
+
+        LocalDateTime to) {
+
+}
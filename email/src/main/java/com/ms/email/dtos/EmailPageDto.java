@@ -0,0 +1,10 @@
+package com.ms.email.dtos;
+
+import java.util.List;
+
+public record EmailPageDto(
+        List<EmailSummaryDto> emails,
+
+        String nextCursor) {
+
+}
@@ -1,9 +1,16 @@
 package com.ms.email.dtos;
 
+import java.util.Map;
 import java.util.UUID;
 
 public record EmailRecordDto(UUID userId,
                              String emailTo,
                              String subject,
-                             String text) {
+                             String text,
+                             String templateId,
+                             Map<String, String> variables) {
+
+    public EmailRecordDto(UUID userId, String emailTo, String subject, String text) {
+        this(userId, emailTo, subject, text, null, null);
+    }
 }
@@ -0,0 +1,24 @@
+package com.ms.email.dtos;
+
+import com.ms.email.enums.StatusEmail;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/** An email without its body; every column is in the history indexes, so pages are index-only scans. */
+public record EmailSummaryDto(
+        UUID emailId,
+
+        UUID userId,
+
+        String emailTo,
+
+        String subject,
+
+        StatusEmail statusEmail,
+
+        LocalDateTime sendDateEmail,
+
+        int attemptCount) {
+
+}
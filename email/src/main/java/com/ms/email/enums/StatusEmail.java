@@ -1,6 +1,10 @@
 package com.ms.email.enums;
 
+// Persisted by ordinal: new states go at the end.
 public enum StatusEmail {
     SENT,
-    ERROR;
-}
\ No newline at end of file
+    ERROR,
+    RETRYING,
+    FAILED,
+    DEFERRED;
+}
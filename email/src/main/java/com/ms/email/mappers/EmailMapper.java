@@ -0,0 +1,23 @@
+package com.ms.email.mappers;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.models.EmailModel;
+import org.springframework.stereotype.Component;
+
+/**
+ * Explicit field copies instead of {@code BeanUtils.copyProperties}, which resolves property
+ * descriptors and invokes accessors reflectively on every message. {@code templateId} and
+ * {@code variables} are not stored; the consumer renders them into subject and text.
+ */
+@Component
+public class EmailMapper {
+
+    public EmailModel toModel(EmailRecordDto emailRecordDto) {
+        var emailModel = new EmailModel();
+        emailModel.setUserId(emailRecordDto.userId());
+        emailModel.setEmailTo(emailRecordDto.emailTo());
+        emailModel.setSubject(emailRecordDto.subject());
+        emailModel.setText(emailRecordDto.text());
+        return emailModel;
+    }
+}
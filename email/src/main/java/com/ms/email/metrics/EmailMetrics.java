@@ -0,0 +1,102 @@
+package com.ms.email.metrics;
+
+import com.ms.email.enums.StatusEmail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the consuming side of the pipeline. Queue dwell and end-to-end latency are measured
+ * against the epoch-millis headers stamped by the user service, so they include clock skew
+ * between the hosts; negative values are dropped.
+ */
+@Component
+public class EmailMetrics {
+
+    public static final String PRODUCED_AT_HEADER = "x-produced-at";
+    public static final String PUBLISHED_AT_HEADER = "x-published-at";
+
+    final Timer queueDwell;
+    final Timer endToEnd;
+    final Timer smtpSend;
+    final Timer smtpMessage;
+    final Timer dbSave;
+    final Map<StatusEmail, Counter> statusCounters = new EnumMap<>(StatusEmail.class);
+
+    public EmailMetrics(MeterRegistry meterRegistry) {
+        this.queueDwell = histogram("email.consumer.queue.dwell", "Tempo entre a publicação e a entrega ao consumidor", meterRegistry);
+        this.endToEnd = histogram("email.consumer.end-to-end", "Tempo entre a solicitação do email e o fim do processamento", meterRegistry);
+        this.smtpSend = histogram("email.smtp.send", "Tempo de cada chamada de envio ao servidor SMTP", meterRegistry);
+        this.smtpMessage = histogram("email.smtp.message", "Tempo de envio SMTP por mensagem", meterRegistry);
+        this.dbSave = histogram("email.db.save", "Tempo para gravar o email no banco", meterRegistry);
+        for (StatusEmail status : StatusEmail.values()) {
+            statusCounters.put(status, Counter.builder("email.status")
+                    .description("Emails processados por status final da tentativa")
+                    .tag("status", status.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    private static Timer histogram(String name, String description, MeterRegistry meterRegistry) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void recordDelivered(Long publishedAt) {
+        recordSince(queueDwell, publishedAt);
+    }
+
+    public void recordProcessed(Long producedAt) {
+        recordSince(endToEnd, producedAt);
+    }
+
+    public void timeSmtp(Runnable send) {
+        timeSmtp(1, send);
+    }
+
+    /** Times one SMTP call carrying {@code messages} messages; each message is credited an equal share. */
+    public void timeSmtp(int messages, Runnable send) {
+        long start = System.nanoTime();
+        try {
+            send.run();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            smtpSend.record(elapsed, TimeUnit.NANOSECONDS);
+            for (int i = 0; i < messages; i++) {
+                smtpMessage.record(elapsed / messages, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    public <T> T timeSave(Supplier<T> save) {
+        return dbSave.record(save);
+    }
+
+    public Timer smtpMessageTimer() {
+        return smtpMessage;
+    }
+
+    public void countStatus(StatusEmail status) {
+        if (status != null) {
+            statusCounters.get(status).increment();
+        }
+    }
+
+    private static void recordSince(Timer timer, Long epochMillis) {
+        if (epochMillis == null) {
+            return;
+        }
+        long elapsed = System.currentTimeMillis() - epochMillis;
+        if (elapsed >= 0) {
+            timer.record(elapsed, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -15,7 +15,9 @@ import java.util.UUID;
 @AllArgsConstructor
 
 @Entity
-@Table(name = "TB_USERS")
+// Range-partitioned by month on sendDateEmail, so it must be set before saving. The table and its
+// indexes are created by schema.sql: Hibernate does not see indexes on a partitioned table.
+@Table(name = "TB_EMAILS")
 public class EmailModel implements Serializable {
     private static final long serialVersionUID = 1L;
 
@@ -28,6 +30,9 @@ public class EmailModel implements Serializable {
     private String subject;
     @Column(columnDefinition = "TEXT")
     private String text;
+    @Column(nullable = false)
     private LocalDateTime sendDateEmail;
     private StatusEmail statusEmail;
+    private int attemptCount;
+    private LocalDateTime nextAttemptAt;
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.ms.email.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+@Entity
+@Table(name = "TB_PROCESSED_MESSAGES", indexes = @Index(name = "idx_processed_messages_processed_at", columnList = "processedAt"))
+public class ProcessedMessageModel implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String messageId;
+    private LocalDateTime processedAt;
+}
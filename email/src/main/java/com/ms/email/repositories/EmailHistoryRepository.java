@@ -0,0 +1,18 @@
+package com.ms.email.repositories;
+
+import com.ms.email.dtos.EmailHistoryFilter;
+import com.ms.email.dtos.EmailSummaryDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface EmailHistoryRepository {
+
+    /**
+     * Newest first, ordered by {@code (sendDateEmail, emailId)}. With a cursor only emails strictly
+     * older than {@code (afterSendDate, afterEmailId)} are returned, so each page is a range scan
+     * that starts where the previous one stopped.
+     */
+    List<EmailSummaryDto> findHistory(EmailHistoryFilter filter, LocalDateTime afterSendDate, UUID afterEmailId, int limit);
+}
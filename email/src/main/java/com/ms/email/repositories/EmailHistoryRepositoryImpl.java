@@ -0,0 +1,68 @@
+package com.ms.email.repositories;
+
+import com.ms.email.dtos.EmailHistoryFilter;
+import com.ms.email.dtos.EmailSummaryDto;
+import com.ms.email.enums.StatusEmail;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builds the WHERE clause from the filters that are present instead of using
+ * {@code (:x IS NULL OR col = :x)}, which would keep Postgres from choosing the matching index.
+ */
+class EmailHistoryRepositoryImpl implements EmailHistoryRepository {
+
+    private static final StatusEmail[] STATUSES = StatusEmail.values();
+
+    private static final RowMapper<EmailSummaryDto> ROW_MAPPER = (rs, rowNum) -> new EmailSummaryDto(
+            rs.getObject("email_id", UUID.class),
+            rs.getObject("user_id", UUID.class),
+            rs.getString("email_to"),
+            rs.getString("subject"),
+            rs.getObject("status_email") != null ? STATUSES[rs.getInt("status_email")] : null,
+            rs.getObject("send_date_email", LocalDateTime.class),
+            rs.getInt("attempt_count"));
+
+    final NamedParameterJdbcTemplate jdbcTemplate;
+
+    EmailHistoryRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<EmailSummaryDto> findHistory(EmailHistoryFilter filter, LocalDateTime afterSendDate, UUID afterEmailId, int limit) {
+        var sql = new StringBuilder("SELECT email_id, user_id, email_to, subject, status_email, send_date_email, attempt_count "
+                + "FROM tb_emails WHERE TRUE");
+        var params = new MapSqlParameterSource();
+        if (filter.userId() != null) {
+            sql.append(" AND user_id = :userId");
+            params.addValue("userId", filter.userId());
+        }
+        if (filter.statusEmail() != null) {
+            sql.append(" AND status_email = :status");
+            params.addValue("status", filter.statusEmail().ordinal());
+        }
+        // Range on the partition key, so partitions outside [from, to) are pruned.
+        if (filter.from() != null) {
+            sql.append(" AND send_date_email >= :from");
+            params.addValue("from", filter.from());
+        }
+        if (filter.to() != null) {
+            sql.append(" AND send_date_email < :to");
+            params.addValue("to", filter.to());
+        }
+        if (afterSendDate != null) {
+            sql.append(" AND (send_date_email, email_id) < (:afterSendDate, :afterEmailId)");
+            params.addValue("afterSendDate", afterSendDate);
+            params.addValue("afterEmailId", afterEmailId);
+        }
+        sql.append(" ORDER BY send_date_email DESC, email_id DESC LIMIT :limit");
+        params.addValue("limit", limit);
+        return jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+}
@@ -2,8 +2,20 @@ package com.ms.email.repositories;
 
 import com.ms.email.models.EmailModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
-public interface EmailRepository extends JpaRepository<EmailModel, UUID> {
+public interface EmailRepository extends JpaRepository<EmailModel, UUID>, EmailHistoryRepository {
+
+    // Rows locked by another instance are skipped instead of waited on.
+    @Query(value = "SELECT * FROM tb_emails WHERE status_email IN (:statuses) AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailModel> claimDue(Collection<Integer> statuses, LocalDateTime now, int limit);
+
+    @Query(value = "SELECT min(next_attempt_at) FROM tb_emails WHERE status_email IN (:statuses)", nativeQuery = true)
+    LocalDateTime findNextAttemptAt(Collection<Integer> statuses);
 }
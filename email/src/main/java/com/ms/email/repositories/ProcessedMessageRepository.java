@@ -0,0 +1,23 @@
+package com.ms.email.repositories;
+
+import com.ms.email.models.ProcessedMessageModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessageModel, String> {
+
+    // Returns 0 when the id is already recorded, waiting on a concurrent insert of the same id to commit or roll back.
+    @Modifying
+    @Query(value = "INSERT INTO tb_processed_messages (message_id, processed_at) VALUES (:messageId, :processedAt) " +
+            "ON CONFLICT (message_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(String messageId, LocalDateTime processedAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProcessedMessageModel p WHERE p.processedAt < :cutoff")
+    int deleteProcessedBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,182 @@
+package com.ms.email.senders;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * {@link JavaMailSenderImpl} that keeps up to {@code poolSize} connected and authenticated
+ * SMTP transports open and reuses them across sends, instead of paying connect, STARTTLS and
+ * AUTH for every message. Transports are retired after {@code maxMessagesPerTransport} messages,
+ * when idle for longer than {@code idleTimeoutMillis}, or as soon as they are found broken.
+ * <p>
+ * {@code SMTPTransport.isConnected()} sends a NOOP, so it is not called on every borrow and
+ * release. A transport counts as healthy until a send fails with anything other than a rejected
+ * recipient, and is only probed when it has been idle for {@code validateAfterIdleMillis}.
+ * <p>
+ * SMTPTransport does its socket I/O inside synchronized methods, which pins a virtual thread to
+ * its carrier. The permit semaphore caps that at {@code poolSize} pinned carriers; everyone else
+ * parks on the semaphore, which does not pin.
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private final BlockingDeque<PooledTransport> idleTransports = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final long idleTimeoutMillis;
+    private final int maxMessagesPerTransport;
+    private final long validateAfterIdleMillis;
+
+    public PooledJavaMailSender(int poolSize, long idleTimeoutMillis, int maxMessagesPerTransport, long validateAfterIdleMillis) {
+        this.permits = new Semaphore(poolSize, true);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxMessagesPerTransport = maxMessagesPerTransport;
+        this.validateAfterIdleMillis = validateAfterIdleMillis;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrompido aguardando uma conexão SMTP livre", e);
+        }
+
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        PooledTransport pooled = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                Object original = (originalMessages != null ? originalMessages[i] : mimeMessages[i]);
+                if (pooled == null) {
+                    try {
+                        pooled = borrow();
+                    } catch (MessagingException e) {
+                        // Without a connection none of the remaining messages can be sent.
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], e);
+                        }
+                        break;
+                    }
+                }
+
+                try {
+                    send(pooled, mimeMessages[i]);
+                } catch (MessagingException e) {
+                    failedMessages.put(original, e);
+                    // The server answered a rejected recipient, so the connection is still usable; anything else is not trusted.
+                    if (!(e instanceof SendFailedException)) {
+                        close(pooled);
+                        pooled = null;
+                    }
+                }
+
+                if (pooled != null && pooled.sentMessages >= maxMessagesPerTransport) {
+                    close(pooled);
+                    pooled = null;
+                }
+            }
+        } finally {
+            if (pooled != null) {
+                release(pooled);
+            }
+            permits.release();
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.smtp.pool.eviction-interval-ms:30000}")
+    public void evictIdleTransports() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledTransport> iterator = idleTransports.iterator();
+        while (iterator.hasNext()) {
+            PooledTransport pooled = iterator.next();
+            if (now - pooled.lastUsedAt >= idleTimeoutMillis && idleTransports.removeFirstOccurrence(pooled)) {
+                close(pooled);
+            }
+        }
+    }
+
+    public int getIdleTransportCount() {
+        return idleTransports.size();
+    }
+
+    @Override
+    public void destroy() {
+        PooledTransport pooled;
+        while ((pooled = idleTransports.pollFirst()) != null) {
+            close(pooled);
+        }
+    }
+
+    private void send(PooledTransport pooled, MimeMessage mimeMessage) throws MessagingException {
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            // saveChanges() regenerates the Message-ID, keep the one set by the caller.
+            mimeMessage.setHeader("Message-ID", messageId);
+        }
+        pooled.transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+        pooled.sentMessages++;
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        long now = System.currentTimeMillis();
+        PooledTransport pooled;
+        // Most recently used first, so the least recently used ones age out under low load.
+        while ((pooled = idleTransports.pollFirst()) != null) {
+            long idle = now - pooled.lastUsedAt;
+            // Only a connection that sat idle may have been dropped by the server without us noticing.
+            if (idle < idleTimeoutMillis && (idle < validateAfterIdleMillis || pooled.transport.isConnected())) {
+                return pooled;
+            }
+            close(pooled);
+        }
+        return new PooledTransport(connectTransport());
+    }
+
+    private void release(PooledTransport pooled) {
+        pooled.lastUsedAt = System.currentTimeMillis();
+        idleTransports.offerFirst(pooled);
+    }
+
+    private void close(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Falha ao fechar conexão SMTP", e);
+        }
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private int sentMessages;
+        private long lastUsedAt;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+            this.lastUsedAt = System.currentTimeMillis();
+        }
+    }
+}
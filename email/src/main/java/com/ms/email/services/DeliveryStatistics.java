@@ -0,0 +1,273 @@
+package com.ms.email.services;
+
+import com.ms.email.enums.StatusEmail;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Email outcomes per {@link StatusEmail} over the last {@code email.stats.window-minutes} minutes,
+ * overall and per recipient domain, kept in memory so reading them never touches Postgres. Each
+ * ring holds one bucket of {@link LongAdder}s per minute; a bucket is reset when the ring comes
+ * back around to it, so recording and reading cost the same whatever the email volume.
+ * <p>
+ * Buckets are checkpointed to {@code tb_delivery_stats} under {@code email.stats.instance-id} and
+ * reloaded on startup, so a restart does not empty the window.
+ */
+@Component
+@Slf4j
+public class DeliveryStatistics {
+
+    static final String ALL_DOMAINS = "*";
+    static final String OTHER_DOMAINS = "other";
+    private static final StatusEmail[] STATUSES = StatusEmail.values();
+    private static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    final JdbcTemplate jdbcTemplate;
+    final int windowMinutes;
+    final int maxDomains;
+    final Ring total;
+    final Map<String, Ring> domains = new ConcurrentHashMap<>();
+    // After the startup restore only the checkpoint writes it, and fixedDelay never overlaps two runs.
+    private volatile long checkpointedUpTo;
+
+    public DeliveryStatistics(JdbcTemplate jdbcTemplate,
+                              @Value("${email.stats.window-minutes:60}") int windowMinutes,
+                              @Value("${email.stats.max-domains:200}") int maxDomains) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowMinutes = windowMinutes;
+        this.maxDomains = maxDomains;
+        this.total = new Ring(windowMinutes);
+    }
+
+    @Value(value = "${email.stats.instance-id:local}")
+    private String instanceId;
+
+    @Value(value = "${email.stats.checkpoint-retention-hours:24}")
+    private int checkpointRetentionHours;
+
+    public void record(StatusEmail status, String emailTo) {
+        record(status, emailTo, System.currentTimeMillis());
+    }
+
+    void record(StatusEmail status, String emailTo, long nowMillis) {
+        if (status == null) {
+            return;
+        }
+        long minute = nowMillis / BUCKET_MILLIS;
+        total.add(minute, status, 1);
+        ringFor(DomainRateLimiter.domainOf(emailTo)).add(minute, status, 1);
+    }
+
+    // Domains past maxDomains share one ring, so a flood of distinct domains cannot grow the map without bound.
+    private Ring ringFor(String domain) {
+        Ring ring = domains.get(domain);
+        if (ring != null) {
+            return ring;
+        }
+        if (domains.size() >= maxDomains) {
+            return domains.computeIfAbsent(OTHER_DOMAINS, d -> new Ring(windowMinutes));
+        }
+        return domains.computeIfAbsent(domain, d -> new Ring(windowMinutes));
+    }
+
+    /** Counts per status over the last {@code minutes} minutes, current minute included. */
+    public Map<StatusEmail, Long> totals(int minutes) {
+        return total.sum(System.currentTimeMillis() / BUCKET_MILLIS, clamp(minutes));
+    }
+
+    public Map<StatusEmail, Long> totalsForDomain(String domain, int minutes) {
+        Ring ring = domains.get(domain);
+        return ring != null ? ring.sum(System.currentTimeMillis() / BUCKET_MILLIS, clamp(minutes)) : emptyCounts();
+    }
+
+    /** Per-domain counts over the last {@code minutes} minutes; domains with nothing in the window are left out. */
+    public Map<String, Map<StatusEmail, Long>> byDomain(int minutes) {
+        long minute = System.currentTimeMillis() / BUCKET_MILLIS;
+        int window = clamp(minutes);
+        Map<String, Map<StatusEmail, Long>> result = new TreeMap<>();
+        domains.forEach((domain, ring) -> {
+            Map<StatusEmail, Long> counts = ring.sum(minute, window);
+            if (counts.values().stream().anyMatch(count -> count > 0)) {
+                result.put(domain, counts);
+            }
+        });
+        return result;
+    }
+
+    public int getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    private int clamp(int minutes) {
+        return Math.max(1, Math.min(minutes, windowMinutes));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        long minute = System.currentTimeMillis() / BUCKET_MILLIS;
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT bucket_start, domain, status_email, count FROM tb_delivery_stats "
+                        + "WHERE instance_id = ? AND bucket_start > ?",
+                instanceId, toTimestamp(minute - windowMinutes));
+        for (Map<String, Object> row : rows) {
+            long bucket = ((Timestamp) row.get("bucket_start")).toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli() / BUCKET_MILLIS;
+            StatusEmail status = STATUSES[((Number) row.get("status_email")).intValue()];
+            long count = ((Number) row.get("count")).longValue();
+            String domain = (String) row.get("domain");
+            (ALL_DOMAINS.equals(domain) ? total : ringFor(domain)).add(bucket, status, count);
+        }
+        // Rewrite the restored buckets on the next checkpoint so they include what arrives meanwhile.
+        checkpointedUpTo = minute - windowMinutes;
+        log.info("Estatísticas de entrega restauradas: {} registro(s)", rows.size());
+    }
+
+    /**
+     * Upserts every bucket touched since the last checkpoint, including the current one, so at most
+     * one checkpoint interval is lost on a crash. Also drops domain rings that have gone idle.
+     */
+    @Scheduled(fixedDelayString = "${email.stats.checkpoint-interval-ms:15000}", initialDelayString = "${email.stats.checkpoint-interval-ms:15000}")
+    public void checkpoint() {
+        long minute = System.currentTimeMillis() / BUCKET_MILLIS;
+        long from = Math.max(checkpointedUpTo, minute - windowMinutes + 1);
+        List<Object[]> rows = new ArrayList<>();
+        collect(rows, ALL_DOMAINS, total, from, minute);
+        domains.forEach((domain, ring) -> collect(rows, domain, ring, from, minute));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO tb_delivery_stats (instance_id, bucket_start, domain, status_email, count) "
+                    + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (instance_id, bucket_start, domain, status_email) "
+                    + "DO UPDATE SET count = EXCLUDED.count", rows);
+        }
+        // The current minute is still open, so it is written again next time.
+        checkpointedUpTo = minute;
+        jdbcTemplate.update("DELETE FROM tb_delivery_stats WHERE bucket_start < ?",
+                toTimestamp(minute - TimeUnit.HOURS.toMinutes(checkpointRetentionHours)));
+        domains.values().removeIf(ring -> ring.isIdle(minute));
+    }
+
+    private void collect(List<Object[]> rows, String domain, Ring ring, long from, long to) {
+        for (long minute = from; minute <= to; minute++) {
+            long[] counts = ring.countsAt(minute);
+            if (counts == null) {
+                continue;
+            }
+            for (StatusEmail status : STATUSES) {
+                if (counts[status.ordinal()] > 0) {
+                    rows.add(new Object[]{instanceId, toTimestamp(minute), domain, status.ordinal(), counts[status.ordinal()]});
+                }
+            }
+        }
+    }
+
+    // Bucket times are stored as UTC wall-clock minutes.
+    private static Timestamp toTimestamp(long minute) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(minute * BUCKET_MILLIS), ZoneOffset.UTC));
+    }
+
+    private static Map<StatusEmail, Long> emptyCounts() {
+        Map<StatusEmail, Long> counts = new EnumMap<>(StatusEmail.class);
+        for (StatusEmail status : STATUSES) {
+            counts.put(status, 0L);
+        }
+        return counts;
+    }
+
+    static final class Ring {
+
+        final Bucket[] buckets;
+
+        Ring(int size) {
+            buckets = new Bucket[size];
+            for (int i = 0; i < size; i++) {
+                buckets[i] = new Bucket();
+            }
+        }
+
+        void add(long minute, StatusEmail status, long count) {
+            Bucket bucket = buckets[(int) (minute % buckets.length)];
+            long current = bucket.minute;
+            if (current != minute) {
+                if (current > minute) {
+                    // Older than the window: its bucket already belongs to a later minute.
+                    return;
+                }
+                bucket.rollTo(minute);
+            }
+            bucket.counts[status.ordinal()].add(count);
+        }
+
+        Map<StatusEmail, Long> sum(long minute, int window) {
+            Map<StatusEmail, Long> sums = emptyCounts();
+            for (Bucket bucket : buckets) {
+                long bucketMinute = bucket.minute;
+                if (bucketMinute > minute - window && bucketMinute <= minute) {
+                    for (StatusEmail status : STATUSES) {
+                        sums.merge(status, bucket.counts[status.ordinal()].sum(), Long::sum);
+                    }
+                }
+            }
+            return sums;
+        }
+
+        /** Returns {@code null} when the ring has nothing for that minute. */
+        long[] countsAt(long minute) {
+            Bucket bucket = buckets[(int) (minute % buckets.length)];
+            if (bucket.minute != minute) {
+                return null;
+            }
+            long[] counts = new long[STATUSES.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = bucket.counts[i].sum();
+            }
+            return counts;
+        }
+
+        boolean isIdle(long minute) {
+            for (Bucket bucket : buckets) {
+                if (bucket.minute > minute - buckets.length) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static final class Bucket {
+
+        final LongAdder[] counts = new LongAdder[STATUSES.length];
+        volatile long minute = Long.MIN_VALUE;
+
+        Bucket() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        // The minute is published after the reset, so a thread that sees the new minute never adds to stale counts.
+        synchronized void rollTo(long newMinute) {
+            if (minute < newMinute) {
+                for (LongAdder count : counts) {
+                    count.reset();
+                }
+                minute = newMinute;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ms.email.services;
+
+import com.ms.email.enums.StatusEmail;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Serves {@link DeliveryStatistics} at /actuator/deliverystats and /actuator/deliverystats/{domain}.
+ * {@code minutes} defaults to the whole window.
+ */
+@Component
+@Endpoint(id = "deliverystats")
+public class DeliveryStatisticsEndpoint {
+
+    final DeliveryStatistics deliveryStatistics;
+
+    public DeliveryStatisticsEndpoint(DeliveryStatistics deliveryStatistics) {
+        this.deliveryStatistics = deliveryStatistics;
+    }
+
+    @ReadOperation
+    public DeliveryStats stats(@Nullable Integer minutes) {
+        int window = minutes != null ? minutes : deliveryStatistics.getWindowMinutes();
+        return new DeliveryStats(Math.min(window, deliveryStatistics.getWindowMinutes()),
+                deliveryStatistics.totals(window), deliveryStatistics.byDomain(window));
+    }
+
+    @ReadOperation
+    public Map<StatusEmail, Long> domain(@Selector String domain, @Nullable Integer minutes) {
+        int window = minutes != null ? minutes : deliveryStatistics.getWindowMinutes();
+        return deliveryStatistics.totalsForDomain(domain, window);
+    }
+
+    public record DeliveryStats(int minutes, Map<StatusEmail, Long> totals, Map<String, Map<StatusEmail, Long>> domains) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.ms.email.services;
+
+import com.ms.email.configurations.EmailThrottleProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per recipient domain. Each bucket is kept in GCRA form, as the single
+ * "theoretical arrival time" of the next token in an {@link AtomicLong}, so taking a token is
+ * one CAS and domains never contend with each other. The buckets live in a
+ * {@link ConcurrentHashMap}, which stripes them across bins; a lock is only taken when a
+ * domain's bucket is first created.
+ */
+@Component
+@EnableConfigurationProperties(EmailThrottleProperties.class)
+public class DomainRateLimiter {
+
+    final EmailThrottleProperties properties;
+    final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public DomainRateLimiter(EmailThrottleProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Takes a token for the domain of {@code emailTo}. Returns 0 if the email may be sent now,
+     * otherwise how many nanoseconds until a token is available; no token is taken in that case.
+     */
+    public long tryAcquire(String emailTo) {
+        if (!properties.enabled()) {
+            return 0;
+        }
+        String domain = domainOf(emailTo);
+        long now = System.nanoTime();
+        return buckets.computeIfAbsent(domain, d -> new Bucket(properties.limitFor(d), now)).tryAcquire(now);
+    }
+
+    /** Drops buckets that have refilled completely; they are recreated on the next email to that domain. */
+    @Scheduled(fixedDelayString = "${email.throttle.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    static String domainOf(String emailTo) {
+        int at = emailTo != null ? emailTo.lastIndexOf('@') : -1;
+        return at >= 0 ? emailTo.substring(at + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    static final class Bucket {
+
+        final long emissionInterval;
+        final long tolerance;
+        final AtomicLong theoreticalArrival;
+
+        Bucket(EmailThrottleProperties.Limit limit, long now) {
+            this.emissionInterval = (long) (1_000_000_000L / limit.ratePerSecond());
+            this.tolerance = emissionInterval * Math.max(0, limit.burst() - 1);
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        long tryAcquire(long now) {
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long allowedAt = tat - tolerance;
+                if (now - allowedAt < 0) {
+                    return allowedAt - now;
+                }
+                long next = (now - tat > 0 ? now : tat) + emissionInterval;
+                if (theoreticalArrival.compareAndSet(tat, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return now - theoreticalArrival.get() >= 0;
+        }
+    }
+}
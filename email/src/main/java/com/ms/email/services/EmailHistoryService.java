@@ -0,0 +1,80 @@
+package com.ms.email.services;
+
+import com.ms.email.dtos.EmailHistoryFilter;
+import com.ms.email.dtos.EmailPageDto;
+import com.ms.email.dtos.EmailSummaryDto;
+import com.ms.email.exceptions.InvalidCursorException;
+import com.ms.email.repositories.EmailRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class EmailHistoryService {
+
+    final EmailRepository emailRepository;
+
+    public EmailHistoryService(EmailRepository emailRepository) {
+        this.emailRepository = emailRepository;
+    }
+
+    @Value(value = "${email.history.page.max-size:100}")
+    private int maxPageSize;
+
+    @Transactional(readOnly = true)
+    public EmailPageDto getHistory(EmailHistoryFilter filter, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        LocalDateTime afterSendDate = null;
+        UUID afterEmailId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            ByteBuffer buffer = decodeCursor(cursor);
+            afterSendDate = fromEpochMicros(buffer.getLong());
+            afterEmailId = new UUID(buffer.getLong(), buffer.getLong());
+        }
+        // One extra row tells whether there is a next page without a COUNT query.
+        List<EmailSummaryDto> emails = emailRepository.findHistory(filter, afterSendDate, afterEmailId, pageSize + 1);
+
+        if (emails.size() <= pageSize) {
+            return new EmailPageDto(emails, null);
+        }
+        List<EmailSummaryDto> page = emails.subList(0, pageSize);
+        return new EmailPageDto(page, encodeCursor(page.get(pageSize - 1)));
+    }
+
+    private static String encodeCursor(EmailSummaryDto last) {
+        ByteBuffer buffer = ByteBuffer.allocate(24)
+                .putLong(toEpochMicros(last.sendDateEmail()))
+                .putLong(last.emailId().getMostSignificantBits())
+                .putLong(last.emailId().getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    private static ByteBuffer decodeCursor(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+        if (bytes.length != 24) {
+            throw new InvalidCursorException(cursor);
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    // send_date_email is a timestamp(6), so microseconds round-trip exactly.
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
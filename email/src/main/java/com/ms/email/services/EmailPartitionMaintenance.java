@@ -0,0 +1,172 @@
+package com.ms.email.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the monthly partitions of {@code tb_emails} ahead of the clock and retires the ones older
+ * than {@code email.log.partition.retention-months}. A retired partition is detached and then
+ * dropped or moved to the archive schema, which costs the same whatever its size, instead of
+ * deleting its rows one by one. Partitions still holding emails waiting for a retry are kept.
+ * <p>
+ * Every instance schedules the job, so a run first takes a session-level advisory lock on its own
+ * connection; an instance that does not get it skips the run instead of racing on the DDL.
+ */
+@Component
+@Slf4j
+public class EmailPartitionMaintenance {
+
+    static final String TABLE = "tb_emails";
+    static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String LOCK_NAME = TABLE + "_maintenance";
+    // Ordinals of the statuses the retry scheduler still picks up; leading column of idx_emails_retry.
+    private static final String PENDING_STATUSES = EmailRetryScheduler.DUE_STATUSES.stream()
+            .map(String::valueOf)
+            .collect(Collectors.joining(", "));
+
+    final JdbcTemplate jdbcTemplate;
+    final TransactionTemplate transactionTemplate;
+
+    public EmailPartitionMaintenance(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Value(value = "${email.log.partition.premake-months:2}")
+    private int premakeMonths;
+
+    @Value(value = "${email.log.partition.retention-months:12}")
+    private int retentionMonths;
+
+    // "drop" or "archive"
+    @Value(value = "${email.log.partition.archive-mode:archive}")
+    private String archiveMode;
+
+    @Value(value = "${email.log.partition.archive-schema:email_archive}")
+    private String archiveSchema;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${email.log.partition.cron:0 30 3 * * *}")
+    public void maintain() {
+        // The lock connection only holds the lock; the DDL runs on other pooled connections.
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (!advisoryLock(connection, "pg_try_advisory_lock")) {
+                log.info("Manutenção de partições em andamento em outra instância; execução ignorada");
+                return null;
+            }
+            try {
+                maintainLocked();
+            } finally {
+                advisoryLock(connection, "pg_advisory_unlock");
+            }
+            return null;
+        });
+    }
+
+    void maintainLocked() {
+        if (!isPartitioned()) {
+            log.warn("Tabela {} não é particionada; manutenção de partições ignorada", TABLE);
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        createUpcoming(current);
+        retireExpired(current);
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT " + function + "(hashtext(?))")) {
+            ps.setString(1, LOCK_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    void createUpcoming(YearMonth current) {
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE
+                    + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+    }
+
+    void retireExpired(YearMonth current) {
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String partition : partitions()) {
+            YearMonth month = monthOf(partition);
+            if (month == null || !month.isBefore(oldestKept)) {
+                continue;
+            }
+            if (hasPendingRetries(partition)) {
+                log.warn("Partição {} ainda tem emails aguardando reenvio; arquivamento adiado", partition);
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> retire(partition));
+            log.info("Partição {} retirada ({})", partition, archiveMode);
+        }
+    }
+
+    private void retire(String partition) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+        if ("drop".equalsIgnoreCase(archiveMode)) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        } else {
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+            jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + archiveSchema);
+        }
+    }
+
+    boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid "
+                        + "WHERE c.relname = ? AND pg_table_is_visible(c.oid))", Boolean.class, TABLE));
+    }
+
+    List<String> partitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ? AND pg_table_is_visible(p.oid) "
+                        + "ORDER BY c.relname", String.class, TABLE);
+    }
+
+    // Stops at the first match in the partition's copy of idx_emails_retry.
+    private boolean hasPendingRetries(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + partition + " WHERE status_email IN (" + PENDING_STATUSES + "))", Boolean.class));
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX);
+    }
+
+    /** Returns {@code null} for tables not named by {@link #partitionName(YearMonth)}. */
+    static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.ms.email.services;
+
+import com.ms.email.enums.StatusEmail;
+import com.ms.email.models.EmailModel;
+import com.ms.email.repositories.EmailRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resends emails in {@link StatusEmail#RETRYING} or {@link StatusEmail#DEFERRED} once their next attempt is due. Due rows are
+ * claimed with {@code SKIP LOCKED} and leased by pushing {@code nextAttemptAt} forward before the
+ * claiming transaction commits, so several instances can share the backlog and a crashed
+ * instance's rows become due again when the lease runs out. Each instance sends at most
+ * {@code email.retry.concurrency} emails at a time and only claims as many rows as it has free slots.
+ * <p>
+ * The poll only starts a drain: as long as the last claim came back full, every finished resend
+ * claims again right away, so a backlog drains at send speed rather than one batch per poll.
+ * When nothing else is due yet, a one-off drain is scheduled for the earliest pending attempt,
+ * so throttled emails go out as soon as their domain has capacity instead of at the next poll.
+ */
+@Component
+@Slf4j
+public class EmailRetryScheduler {
+
+    static final List<Integer> DUE_STATUSES = List.of(StatusEmail.RETRYING.ordinal(), StatusEmail.DEFERRED.ordinal());
+    // Rows that are due but locked by another instance would otherwise wake us up in a tight loop.
+    static final long MIN_WAKE_UP_MS = 100;
+
+    final EmailRepository emailRepository;
+    final EmailService emailService;
+    final Executor executor;
+    final TaskScheduler taskScheduler;
+    final TransactionTemplate transactionTemplate;
+    final Semaphore permits;
+    // Only the thread that set this acquires permits, so a claim never exceeds the free slots.
+    final AtomicBoolean draining = new AtomicBoolean();
+    final AtomicBoolean moreDue = new AtomicBoolean();
+    final AtomicReference<Instant> wakeUpAt = new AtomicReference<>();
+
+    public EmailRetryScheduler(EmailRepository emailRepository,
+                               EmailService emailService,
+                               @Qualifier("applicationTaskExecutor") Executor executor,
+                               TaskScheduler taskScheduler,
+                               PlatformTransactionManager transactionManager,
+                               @Value(value = "${email.retry.concurrency:4}") int concurrency) {
+        this.emailRepository = emailRepository;
+        this.emailService = emailService;
+        this.executor = executor;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.permits = new Semaphore(concurrency);
+    }
+
+    @Value(value = "${email.retry.batch-size:50}")
+    private int batchSize;
+
+    @Value(value = "${email.retry.lease-ms:300000}")
+    private long lease;
+
+    @Value(value = "${email.retry.poll-interval-ms:10000}")
+    private long pollInterval;
+
+    @Scheduled(fixedDelayString = "${email.retry.poll-interval-ms:10000}")
+    public void retryDueEmails() {
+        moreDue.set(true);
+        drain();
+    }
+
+    void drain() {
+        // Re-checked after handing over, so a permit released while another thread was draining is not left unused.
+        while (moreDue.get() && permits.availablePermits() > 0 && draining.compareAndSet(false, true)) {
+            try {
+                int limit;
+                while (moreDue.get() && (limit = Math.min(batchSize, permits.availablePermits())) > 0) {
+                    List<EmailModel> due;
+                    try {
+                        due = claimDue(limit);
+                    } catch (RuntimeException e) {
+                        moreDue.set(false);
+                        log.error("Erro ao buscar emails para reenvio: {}", e.getMessage());
+                        return;
+                    }
+                    // A short claim means nothing else is due yet; wake up when the next row is.
+                    moreDue.set(due.size() == limit);
+                    dispatch(due);
+                    if (due.size() < limit) {
+                        scheduleWakeUp(emailRepository.findNextAttemptAt(DUE_STATUSES));
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void dispatch(List<EmailModel> due) {
+        for (EmailModel emailModel : due) {
+            permits.acquireUninterruptibly();
+            try {
+                executor.execute(() -> retry(emailModel));
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                moreDue.set(false);
+                log.warn("Reenvio do email {} adiado: executor indisponível", emailModel.getEmailId());
+            }
+        }
+    }
+
+    void scheduleWakeUp(LocalDateTime nextAttemptAt) {
+        if (nextAttemptAt == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant at = nextAttemptAt.atZone(ZoneId.systemDefault()).toInstant();
+        if (at.isBefore(now.plusMillis(MIN_WAKE_UP_MS))) {
+            at = now.plusMillis(MIN_WAKE_UP_MS);
+        }
+        if (!at.isBefore(now.plusMillis(pollInterval))) {
+            return;
+        }
+        // One pending wake-up is enough; keep whichever fires first.
+        Instant current = wakeUpAt.get();
+        if (current != null && current.isAfter(now) && !current.isAfter(at)) {
+            return;
+        }
+        if (wakeUpAt.compareAndSet(current, at)) {
+            taskScheduler.schedule(this::retryDueEmails, at);
+        }
+    }
+
+    List<EmailModel> claimDue(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailModel> due = emailRepository.claimDue(DUE_STATUSES, now, limit);
+            LocalDateTime leasedUntil = now.plus(lease, ChronoUnit.MILLIS);
+            due.forEach(emailModel -> emailModel.setNextAttemptAt(leasedUntil));
+            return emailRepository.saveAll(due);
+        });
+    }
+
+    private void retry(EmailModel emailModel) {
+        try {
+            EmailModel result = emailService.sendEmail(emailModel);
+            log.info("Reenvio do email {}: {}", result.getEmailId(), result.getStatusEmail());
+            if (result.getStatusEmail() == StatusEmail.DEFERRED) {
+                scheduleWakeUp(result.getNextAttemptAt());
+            }
+        } catch (RuntimeException e) {
+            log.error("Erro ao reenviar o email {}: {}", emailModel.getEmailId(), e.getMessage());
+        } finally {
+            permits.release();
+            drain();
+        }
+    }
+}
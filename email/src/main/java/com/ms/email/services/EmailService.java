@@ -1,48 +1,205 @@
 package com.ms.email.services;
 
 import com.ms.email.enums.StatusEmail;
+import com.ms.email.metrics.EmailMetrics;
 import com.ms.email.models.EmailModel;
 import com.ms.email.repositories.EmailRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@Slf4j
 public class EmailService {
 
     final EmailRepository emailRepository;
     final JavaMailSender emailSender;
+    final MessageDeduplicator messageDeduplicator;
+    final EmailMetrics emailMetrics;
+    final DomainRateLimiter domainRateLimiter;
+    final DeliveryStatistics deliveryStatistics;
 
-    public EmailService(EmailRepository emailRepository, JavaMailSender emailSender) {
+    public EmailService(EmailRepository emailRepository,
+                        JavaMailSender emailSender,
+                        MessageDeduplicator messageDeduplicator,
+                        EmailMetrics emailMetrics,
+                        DomainRateLimiter domainRateLimiter,
+                        DeliveryStatistics deliveryStatistics) {
         this.emailRepository = emailRepository;
         this.emailSender = emailSender;
+        this.messageDeduplicator = messageDeduplicator;
+        this.emailMetrics = emailMetrics;
+        this.domainRateLimiter = domainRateLimiter;
+        this.deliveryStatistics = deliveryStatistics;
     }
 
     @Value(value = "${spring.mail.username}")
     private String emailFrom;
 
+    @Value(value = "${email.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value(value = "${email.retry.base-delay-ms:30000}")
+    private long baseDelay;
+
+    @Value(value = "${email.retry.max-delay-ms:3600000}")
+    private long maxDelay;
+
+    /**
+     * Sends the email unless the broker message {@code messageId} was already handled. The message
+     * is recorded in the same transaction as the email row, so a redelivery after a rollback is
+     * sent normally. Messages without an id are always sent.
+     */
+    @Transactional
+    public Optional<EmailModel> sendEmail(String messageId, EmailModel emailModel) {
+        if (messageId != null && !messageDeduplicator.claim(messageId)) {
+            log.info("Mensagem {} já processada, reenvio ignorado", messageId);
+            return Optional.empty();
+        }
+        return Optional.of(sendEmail(emailModel));
+    }
+
     @Transactional
     public EmailModel sendEmail(EmailModel emailModel) {
         try {
-            emailModel.setSendDateEmail(LocalDateTime.now());
+            if (emailModel.getSendDateEmail() == null) {
+                emailModel.setSendDateEmail(LocalDateTime.now());
+            }
             emailModel.setEmailFrom(emailFrom);
 
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(emailModel.getEmailTo());
-            message.setSubject(emailModel.getSubject());
-            message.setText(emailModel.getText());
-            emailSender.send(message);
+            long throttled = domainRateLimiter.tryAcquire(emailModel.getEmailTo());
+            if (throttled > 0) {
+                defer(emailModel, throttled);
+            } else {
+                SimpleMailMessage message = toMailMessage(emailModel);
+                emailMetrics.timeSmtp(() -> emailSender.send(message));
 
-            emailModel.setStatusEmail(StatusEmail.SENT);
+                emailModel.setStatusEmail(StatusEmail.SENT);
+                emailModel.setNextAttemptAt(null);
+            }
         } catch (MailException e) {
-            emailModel.setStatusEmail(StatusEmail.ERROR);
+            scheduleRetry(emailModel);
         } finally {
-            return emailRepository.save(emailModel);
+            recordOutcome(emailModel);
+            // Flushed inside the timer so the measurement covers the INSERT, not just the persist call.
+            return emailMetrics.timeSave(() -> emailRepository.saveAndFlush(emailModel));
+        }
+    }
+
+    /** Batch form of {@link #sendEmail(String, EmailModel)}; {@code messageIds} is parallel to {@code emailModels}. */
+    @Transactional
+    public List<EmailModel> sendEmails(List<String> messageIds, List<EmailModel> emailModels) {
+        List<EmailModel> claimed = new ArrayList<>(emailModels.size());
+        for (int i = 0; i < emailModels.size(); i++) {
+            String messageId = messageIds.get(i);
+            if (messageId == null || messageDeduplicator.claim(messageId)) {
+                claimed.add(emailModels.get(i));
+            } else {
+                log.info("Mensagem {} já processada, reenvio ignorado", messageId);
+            }
+        }
+        return claimed.isEmpty() ? claimed : sendEmails(claimed);
+    }
+
+    @Transactional
+    public List<EmailModel> sendEmails(List<EmailModel> emailModels) {
+        List<EmailModel> sendable = new ArrayList<>(emailModels.size());
+        List<SimpleMailMessage> messages = new ArrayList<>(emailModels.size());
+        for (EmailModel emailModel : emailModels) {
+            if (emailModel.getSendDateEmail() == null) {
+                emailModel.setSendDateEmail(LocalDateTime.now());
+            }
+            emailModel.setEmailFrom(emailFrom);
+            long throttled = domainRateLimiter.tryAcquire(emailModel.getEmailTo());
+            if (throttled > 0) {
+                defer(emailModel, throttled);
+            } else {
+                sendable.add(emailModel);
+                messages.add(toMailMessage(emailModel));
+            }
         }
+
+        // SimpleMailMessage has value equality, so failures are matched by identity.
+        Set<Object> failedMessages = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean allFailed = false;
+        if (!messages.isEmpty()) {
+            try {
+                emailMetrics.timeSmtp(messages.size(), () -> emailSender.send(messages.toArray(SimpleMailMessage[]::new)));
+            } catch (MailSendException e) {
+                failedMessages.addAll(e.getFailedMessages().keySet());
+            } catch (MailException e) {
+                allFailed = true;
+            }
+        }
+
+        for (int i = 0; i < messages.size(); i++) {
+            if (allFailed || failedMessages.contains(messages.get(i))) {
+                scheduleRetry(sendable.get(i));
+            } else {
+                sendable.get(i).setStatusEmail(StatusEmail.SENT);
+            }
+        }
+        emailModels.forEach(this::recordOutcome);
+        return emailMetrics.timeSave(() -> emailRepository.saveAllAndFlush(emailModels));
+    }
+
+    private void recordOutcome(EmailModel emailModel) {
+        emailMetrics.countStatus(emailModel.getStatusEmail());
+        deliveryStatistics.record(emailModel.getStatusEmail(), emailModel.getEmailTo());
+    }
+
+    // Not a failure: the attempt count is untouched and the retry scheduler picks the email up once the domain has capacity.
+    void defer(EmailModel emailModel, long throttledNanos) {
+        long delay = TimeUnit.NANOSECONDS.toMillis(throttledNanos) + 1;
+        // Spread deferred emails over the wait so they do not all come back at the same instant.
+        delay += ThreadLocalRandom.current().nextLong(delay);
+        emailModel.setStatusEmail(StatusEmail.DEFERRED);
+        emailModel.setNextAttemptAt(LocalDateTime.now().plus(delay, ChronoUnit.MILLIS));
+    }
+
+    void scheduleRetry(EmailModel emailModel) {
+        int attempt = emailModel.getAttemptCount() + 1;
+        emailModel.setAttemptCount(attempt);
+        if (attempt >= maxAttempts) {
+            emailModel.setStatusEmail(StatusEmail.FAILED);
+            emailModel.setNextAttemptAt(null);
+            log.warn("Email {} falhou após {} tentativas", emailModel.getEmailId(), attempt);
+            return;
+        }
+        emailModel.setStatusEmail(StatusEmail.RETRYING);
+        emailModel.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempt), ChronoUnit.MILLIS));
+    }
+
+    // Exponential backoff with full jitter, so a recovering SMTP server is not hit by every retry at once.
+    long backoff(int attempt) {
+        long ceiling = baseDelay << Math.min(attempt - 1, 30);
+        if (ceiling <= 0 || ceiling > maxDelay) {
+            ceiling = maxDelay;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private SimpleMailMessage toMailMessage(EmailModel emailModel) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(emailModel.getEmailTo());
+        message.setSubject(emailModel.getSubject());
+        message.setText(emailModel.getText());
+        return message;
     }
-}
\ No newline at end of file
+}
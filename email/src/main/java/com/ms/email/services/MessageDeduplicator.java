@@ -0,0 +1,91 @@
+package com.ms.email.services;
+
+import com.ms.email.repositories.ProcessedMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers which broker message ids have already been handled. Recently seen ids are answered
+ * from a bounded in-memory LRU; the authoritative record is TB_PROCESSED_MESSAGES, whose primary
+ * key makes {@link #claim} atomic across instances. Ids only enter the LRU once the claiming
+ * transaction has committed, and rows older than {@code email.dedupe.ttl-ms} are purged.
+ */
+@Component
+@Slf4j
+public class MessageDeduplicator {
+
+    final ProcessedMessageRepository processedMessageRepository;
+    final ReentrantLock lock = new ReentrantLock();
+    final Map<String, Boolean> recent;
+
+    public MessageDeduplicator(ProcessedMessageRepository processedMessageRepository,
+                               @Value(value = "${email.dedupe.cache-size:100000}") int cacheSize) {
+        this.processedMessageRepository = processedMessageRepository;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Value(value = "${email.dedupe.ttl-ms:604800000}")
+    private long ttl;
+
+    /** Fast path only: a miss does not mean the message is new. */
+    public boolean isDuplicate(String messageId) {
+        lock.lock();
+        try {
+            return recent.get(messageId) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records {@code messageId} as processed in the current transaction. Returns {@code false} if
+     * it was already recorded, in which case the message must not be handled again.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean claim(String messageId) {
+        if (isDuplicate(messageId) || processedMessageRepository.insertIfAbsent(messageId, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remember(messageId);
+            }
+        });
+        return true;
+    }
+
+    void remember(String messageId) {
+        lock.lock();
+        try {
+            recent.put(messageId, Boolean.TRUE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.dedupe.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = processedMessageRepository.deleteProcessedBefore(LocalDateTime.now().minus(ttl, ChronoUnit.MILLIS));
+        if (purged > 0) {
+            log.info("{} id(s) de mensagens processadas expurgados", purged);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ms.email.templates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template parsed once into literal segments and variable names, alternating
+ * {@code literals[0] variables[0] literals[1] ... literals[n]}. Placeholders use {@code {{name}}};
+ * a missing variable renders as an empty string.
+ */
+public final class EmailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private EmailTemplate(String[] literals, String[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static EmailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            literals.add(source.substring(position, open));
+            variables.add(source.substring(open + OPEN.length(), close).trim());
+            position = close + CLOSE.length();
+        }
+        return new EmailTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new));
+    }
+
+    public void renderTo(StringBuilder target, Map<String, String> values) {
+        target.ensureCapacity(target.length() + literalLength + variables.length * 16);
+        target.append(literals[0]);
+        for (int i = 0; i < variables.length; i++) {
+            String value = values != null ? values.get(variables[i]) : null;
+            if (value != null) {
+                target.append(value);
+            }
+            target.append(literals[i + 1]);
+        }
+    }
+}
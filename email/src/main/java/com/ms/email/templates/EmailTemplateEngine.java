@@ -0,0 +1,83 @@
+package com.ms.email.templates;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves templates by id from {@code email.templates.location}. A template file holds the
+ * subject on its first line, a blank line and then the body. Each template is read and compiled
+ * once and then served from memory; rendering reuses a per-thread buffer.
+ */
+@Component
+@Slf4j
+public class EmailTemplateEngine {
+
+    private static final Pattern VALID_ID = Pattern.compile("[a-zA-Z0-9_-]+");
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    final ResourceLoader resourceLoader;
+
+    private final Map<String, CompiledTemplate> cache = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    public EmailTemplateEngine(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Value(value = "${email.templates.location:classpath:/templates/email/}")
+    private String location;
+
+    public RenderedEmail render(String templateId, Map<String, String> variables) {
+        CompiledTemplate template = cache.computeIfAbsent(templateId, this::load);
+        StringBuilder buffer = buffers.get();
+        try {
+            buffer.setLength(0);
+            template.subject().renderTo(buffer, variables);
+            String subject = buffer.toString();
+
+            buffer.setLength(0);
+            template.body().renderTo(buffer, variables);
+            return new RenderedEmail(subject, buffer.toString());
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                buffers.remove();
+            }
+        }
+    }
+
+    public void evict(String templateId) {
+        cache.remove(templateId);
+    }
+
+    private CompiledTemplate load(String templateId) {
+        if (!VALID_ID.matcher(templateId).matches()) {
+            throw new TemplateNotFoundException(templateId);
+        }
+        Resource resource = resourceLoader.getResource(location + templateId + ".txt");
+        if (!resource.exists()) {
+            throw new TemplateNotFoundException(templateId);
+        }
+        try {
+            String source = resource.getContentAsString(StandardCharsets.UTF_8).replace("\r\n", "\n");
+            int separator = source.indexOf("\n\n");
+            String subject = separator < 0 ? source.strip() : source.substring(0, separator).strip();
+            String body = separator < 0 ? "" : source.substring(separator + 2);
+            log.info("Template de email {} compilado", templateId);
+            return new CompiledTemplate(EmailTemplate.compile(subject), EmailTemplate.compile(body));
+        } catch (IOException e) {
+            throw new IllegalStateException("Não foi possível ler o template " + templateId, e);
+        }
+    }
+
+    private record CompiledTemplate(EmailTemplate subject, EmailTemplate body) {
+    }
+}
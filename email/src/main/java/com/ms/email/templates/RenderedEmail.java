@@ -0,0 +1,5 @@
+package com.ms.email.templates;
+
+public record RenderedEmail(String subject,
+                            String text) {
+}
@@ -0,0 +1,7 @@
+package com.ms.email.templates;
+
+public class TemplateNotFoundException extends RuntimeException {
+    public TemplateNotFoundException(String templateId) {
+        super("Template de email não encontrado: " + templateId);
+    }
+}
@@ -0,0 +1,92 @@
+-- Run on every start (spring.sql.init.mode=always) before Hibernate's schema update.
+-- Statements are separated by @@ because the DO blocks contain semicolons.
+
+-- Email log, range-partitioned by month on send_date_email. The primary key has to include the
+-- partition key; EmailModel still maps email_id alone as its id.
+CREATE TABLE IF NOT EXISTS tb_emails (
+    email_id        UUID         NOT NULL,
+    user_id         UUID,
+    email_from      VARCHAR(255),
+    email_to        VARCHAR(255),
+    subject         VARCHAR(255),
+    text            TEXT,
+    send_date_email TIMESTAMP(6) NOT NULL,
+    status_email    SMALLINT,
+    attempt_count   INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP(6),
+    PRIMARY KEY (email_id, send_date_email)
+) PARTITION BY RANGE (send_date_email)
+@@
+
+-- Declared on the parent, so every partition gets them.
+CREATE INDEX IF NOT EXISTS idx_emails_retry ON tb_emails (status_email, next_attempt_at)
+@@
+-- The history indexes end in the keyset columns and include every EmailSummaryDto column, so
+-- GET /emails pages are index-only range scans that never read the TEXT body.
+CREATE INDEX IF NOT EXISTS idx_emails_user_history ON tb_emails (user_id, send_date_email, email_id)
+    INCLUDE (status_email, email_to, subject, attempt_count)
+@@
+CREATE INDEX IF NOT EXISTS idx_emails_status_history ON tb_emails (status_email, send_date_email, email_id)
+    INCLUDE (user_id, email_to, subject, attempt_count)
+@@
+CREATE INDEX IF NOT EXISTS idx_emails_send_date ON tb_emails (send_date_email)
+@@
+
+-- Partitions from the oldest legacy row (if any) up to two months ahead; EmailPartitionMaintenance
+-- keeps creating them from then on. There is no default partition: a default partition holding rows
+-- for a month would make creating that month's partition fail.
+DO $$
+DECLARE
+    legacy  BOOLEAN := EXISTS (SELECT 1 FROM information_schema.columns
+                               WHERE table_schema = current_schema() AND table_name = 'tb_users' AND column_name = 'email_id');
+    first   DATE := date_trunc('month', now())::date;
+    month   DATE;
+BEGIN
+    IF legacy THEN
+        EXECUTE 'SELECT least($1, date_trunc(''month'', min(send_date_email))::date) FROM tb_users' INTO first USING first;
+    END IF;
+    month := coalesce(first, date_trunc('month', now())::date);
+    WHILE month <= date_trunc('month', now()) + INTERVAL '2 months' LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF tb_emails FOR VALUES FROM (%L) TO (%L)',
+                       'tb_emails_p' || to_char(month, 'YYYY_MM'), month, (month + INTERVAL '1 month')::date);
+        month := (month + INTERVAL '1 month')::date;
+    END LOOP;
+
+    -- The email log used to be mapped to TB_USERS; copy it over once and keep the old table aside.
+    IF legacy THEN
+        INSERT INTO tb_emails (email_id, user_id, email_from, email_to, subject, text, send_date_email,
+                               status_email, attempt_count, next_attempt_at)
+        SELECT email_id, user_id, email_from, email_to, subject, text, coalesce(send_date_email, now()),
+               status_email, coalesce(attempt_count, 0), next_attempt_at
+        FROM tb_users
+        ON CONFLICT DO NOTHING;
+        ALTER TABLE tb_users RENAME TO tb_users_legacy;
+    END IF;
+END $$
+@@
+
+-- Per-minute checkpoints of DeliveryStatistics; domain '*' holds the totals over all domains.
+CREATE TABLE IF NOT EXISTS tb_delivery_stats (
+    instance_id  VARCHAR(255) NOT NULL,
+    bucket_start TIMESTAMP(6) NOT NULL,
+    domain       VARCHAR(255) NOT NULL,
+    status_email SMALLINT     NOT NULL,
+    count        BIGINT       NOT NULL,
+    PRIMARY KEY (instance_id, bucket_start, domain, status_email)
+)
+@@
+CREATE INDEX IF NOT EXISTS idx_delivery_stats_bucket ON tb_delivery_stats (bucket_start)
+@@
+
+-- Leases spreading the partitioned email queues over the instances; see PartitionOwnership.
+CREATE TABLE IF NOT EXISTS tb_email_consumers (
+    instance_id  VARCHAR(255) PRIMARY KEY,
+    heartbeat_at TIMESTAMP(6) NOT NULL
+)
+@@
+CREATE TABLE IF NOT EXISTS tb_email_partition_owners (
+    partition   INTEGER PRIMARY KEY,
+    instance_id VARCHAR(255),
+    lease_until TIMESTAMP(6)
+)
+@@
@@ -0,0 +1,29 @@
+package com.ms.email.configurations;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailPartitionsTest {
+
+    @Test
+    void singlePartition_UsesLegacyQueue() {
+        var partitions = new EmailPartitions("emails", 1);
+
+        assertFalse(partitions.isPartitioned());
+        assertArrayEquals(new String[]{"emails"}, partitions.allQueues());
+    }
+
+    @Test
+    void allQueues_OneQueuePerPartition() {
+        var partitions = new EmailPartitions("emails", 3);
+
+        assertTrue(partitions.isPartitioned());
+        assertArrayEquals(new String[]{"emails.0", "emails.1", "emails.2"}, partitions.allQueues());
+    }
+
+    @Test
+    void invalidPartitionCount_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new EmailPartitions("emails", 0));
+    }
+}
@@ -0,0 +1,107 @@
+package com.ms.email.consumer;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.mappers.EmailMapper;
+import com.ms.email.metrics.EmailMetrics;
+import com.ms.email.models.EmailModel;
+import com.ms.email.services.EmailService;
+import com.ms.email.services.MessageDeduplicator;
+import com.ms.email.templates.EmailTemplateEngine;
+import com.ms.email.templates.RenderedEmail;
+import com.ms.email.templates.TemplateNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailBatchConsumerTest {
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private EmailTemplateEngine emailTemplateEngine;
+
+    @Mock
+    private MessageDeduplicator messageDeduplicator;
+
+    private EmailBatchConsumer emailBatchConsumer;
+
+    @BeforeEach
+    void setUp() {
+        emailBatchConsumer = new EmailBatchConsumer(emailService, emailTemplateEngine, messageDeduplicator,
+                new EmailMapper(), new EmailMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listenEmailQueue_MapsEveryMessageIntoOneBatch() {
+        UUID firstUser = UUID.randomUUID();
+        UUID secondUser = UUID.randomUUID();
+        when(emailTemplateEngine.render("welcome", Map.of("name", "Segundo")))
+                .thenReturn(new RenderedEmail("Bem-vindo", "Olá, Segundo"));
+
+        emailBatchConsumer.listenEmailQueue(List.of(
+                message("message-1", new EmailRecordDto(firstUser, "first@example.com", "Assunto", "Texto")),
+                message("message-2", new EmailRecordDto(secondUser, "second@example.com", null, null,
+                        "welcome", Map.of("name", "Segundo")))));
+
+        ArgumentCaptor<List<String>> messageIds = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<EmailModel>> emailModels = ArgumentCaptor.forClass(List.class);
+        verify(emailService, times(1)).sendEmails(messageIds.capture(), emailModels.capture());
+        assertEquals(List.of("message-1", "message-2"), messageIds.getValue());
+        EmailModel first = emailModels.getValue().get(0);
+        assertEquals(firstUser, first.getUserId());
+        assertEquals("first@example.com", first.getEmailTo());
+        assertEquals("Assunto", first.getSubject());
+        EmailModel second = emailModels.getValue().get(1);
+        assertEquals(secondUser, second.getUserId());
+        assertEquals("Bem-vindo", second.getSubject());
+        assertEquals("Olá, Segundo", second.getText());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listenEmailQueue_DuplicatesAndUnknownTemplatesLeftOut() {
+        when(messageDeduplicator.isDuplicate("message-1")).thenReturn(true);
+        when(emailTemplateEngine.render("missing", Map.of())).thenThrow(new TemplateNotFoundException("missing"));
+
+        emailBatchConsumer.listenEmailQueue(List.of(
+                message("message-1", new EmailRecordDto(UUID.randomUUID(), "dup@example.com", "Assunto", "Texto")),
+                message("message-2", new EmailRecordDto(UUID.randomUUID(), "missing@example.com", null, null, "missing", Map.of())),
+                message("message-3", new EmailRecordDto(UUID.randomUUID(), "ok@example.com", "Assunto", "Texto"))));
+
+        ArgumentCaptor<List<EmailModel>> emailModels = ArgumentCaptor.forClass(List.class);
+        verify(emailService, times(1)).sendEmails(eq(List.of("message-3")), emailModels.capture());
+        assertEquals("ok@example.com", emailModels.getValue().get(0).getEmailTo());
+    }
+
+    @Test
+    void listenEmailQueue_NothingLeft_ServiceNotCalled() {
+        when(messageDeduplicator.isDuplicate("message-1")).thenReturn(true);
+
+        emailBatchConsumer.listenEmailQueue(List.of(
+                message("message-1", new EmailRecordDto(UUID.randomUUID(), "dup@example.com", "Assunto", "Texto"))));
+
+        verify(emailService, never()).sendEmails(anyList(), anyList());
+    }
+
+    private static Message<EmailRecordDto> message(String messageId, EmailRecordDto emailRecordDto) {
+        return MessageBuilder.withPayload(emailRecordDto).setHeader(AmqpHeaders.MESSAGE_ID, messageId).build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.ms.email.consumer;
+
+import com.ms.email.configurations.EmailPartitions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EmailListenerConfigurerTest {
+
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    private final RabbitListenerContainerFactory<?> containerFactory = mock(RabbitListenerContainerFactory.class);
+    private final RabbitListenerContainerFactory<?> batchContainerFactory = mock(RabbitListenerContainerFactory.class);
+    private final RabbitListenerEndpointRegistrar registrar = mock(RabbitListenerEndpointRegistrar.class);
+
+    @BeforeEach
+    void setUp() {
+        beanFactory.registerSingleton("rabbitListenerContainerFactory", containerFactory);
+        beanFactory.registerSingleton("batchListenerFactory", batchContainerFactory);
+    }
+
+    @Test
+    void configureRabbitListeners_SinglePartition_OneContainerWithFactoryConcurrency() {
+        beanFactory.registerSingleton("emailConsumer", mock(EmailConsumer.class));
+
+        List<MethodRabbitListenerEndpoint> endpoints = register(new EmailPartitions("emails", 1), containerFactory);
+
+        assertEquals(1, endpoints.size());
+        assertEquals(ListenerAutoscaler.LISTENER_ID, endpoints.get(0).getId());
+        assertEquals(List.of("emails"), endpoints.get(0).getQueueNames());
+        assertNull(endpoints.get(0).getConcurrency());
+        assertTrue(endpoints.get(0).getAutoStartup());
+        assertEquals(EmailListenerConfigurer.LISTENER_METHOD, endpoints.get(0).getMethod().getName());
+    }
+
+    @Test
+    void configureRabbitListeners_Partitioned_OneSingleConsumerContainerPerPartition() {
+        beanFactory.registerSingleton("emailConsumer", mock(EmailConsumer.class));
+
+        List<MethodRabbitListenerEndpoint> endpoints = register(new EmailPartitions("emails", 3), containerFactory);
+
+        assertEquals(List.of("emailListener-0", "emailListener-1", "emailListener-2"),
+                endpoints.stream().map(MethodRabbitListenerEndpoint::getId).toList());
+        for (int partition = 0; partition < 3; partition++) {
+            assertEquals(List.of("emails." + partition), endpoints.get(partition).getQueueNames());
+            assertEquals("1", endpoints.get(partition).getConcurrency());
+            assertFalse(endpoints.get(partition).getAutoStartup());
+        }
+    }
+
+    @Test
+    void configureRabbitListeners_BatchConsumer_UsesBatchFactory() {
+        beanFactory.registerSingleton("emailBatchConsumer", mock(EmailBatchConsumer.class));
+
+        List<MethodRabbitListenerEndpoint> endpoints = register(new EmailPartitions("emails", 2), batchContainerFactory);
+
+        assertEquals(2, endpoints.size());
+        assertTrue(endpoints.stream().allMatch(endpoint -> Boolean.TRUE.equals(endpoint.getBatchListener())));
+    }
+
+    private List<MethodRabbitListenerEndpoint> register(EmailPartitions emailPartitions, RabbitListenerContainerFactory<?> expectedFactory) {
+        new EmailListenerConfigurer(emailPartitions, beanFactory.getBeanProvider(EmailConsumer.class),
+                beanFactory.getBeanProvider(EmailBatchConsumer.class), beanFactory).configureRabbitListeners(registrar);
+
+        ArgumentCaptor<RabbitListenerEndpoint> endpoints = ArgumentCaptor.forClass(RabbitListenerEndpoint.class);
+        ArgumentCaptor<RabbitListenerContainerFactory<?>> factories = ArgumentCaptor.forClass(RabbitListenerContainerFactory.class);
+        verify(registrar, atLeastOnce()).registerEndpoint(endpoints.capture(), factories.capture());
+        assertTrue(factories.getAllValues().stream().allMatch(factory -> factory == expectedFactory));
+        return endpoints.getAllValues().stream().map(MethodRabbitListenerEndpoint.class::cast).toList();
+    }
+}
@@ -0,0 +1,130 @@
+package com.ms.email.consumer;
+
+import com.ms.email.configurations.EmailPartitions;
+import com.ms.email.metrics.EmailMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ListenerAutoscalerTest {
+
+    private final RabbitListenerEndpointRegistry listenerRegistry = mock(RabbitListenerEndpointRegistry.class);
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+    private EmailMetrics emailMetrics;
+    private ListenerAutoscaler autoscaler;
+
+    @BeforeEach
+    void setUp() {
+        var meterRegistry = new SimpleMeterRegistry();
+        emailMetrics = new EmailMetrics(meterRegistry);
+        autoscaler = new ListenerAutoscaler(listenerRegistry, amqpAdmin,
+                new EmailPartitions("emails", 1), emailMetrics, meterRegistry);
+        ReflectionTestUtils.setField(autoscaler, "minConsumers", 1);
+        ReflectionTestUtils.setField(autoscaler, "maxConsumers", 4);
+        ReflectionTestUtils.setField(autoscaler, "minPrefetch", 1);
+        ReflectionTestUtils.setField(autoscaler, "maxPrefetch", 250);
+        ReflectionTestUtils.setField(autoscaler, "backlogPerConsumer", 100L);
+        ReflectionTestUtils.setField(autoscaler, "latencyHighMs", 2000.0);
+        ReflectionTestUtils.setField(autoscaler, "targetBufferMs", 1000.0);
+        ReflectionTestUtils.setField(autoscaler, "idleTicksToScaleDown", 2);
+        ReflectionTestUtils.setField(autoscaler, "batchSize", 50);
+        ReflectionTestUtils.setField(autoscaler, "consumers", 2);
+        ReflectionTestUtils.setField(autoscaler, "prefetch", 10);
+    }
+
+    @Test
+    void decide_BacklogAboveThreshold_AddsConsumer() {
+        ScalingDecision decision = autoscaler.decide(500, 100);
+
+        assertEquals(3, decision.consumers());
+        assertEquals(10, decision.prefetch());
+    }
+
+    @Test
+    void decide_SlowSmtp_RemovesConsumerAndShrinksPrefetch() {
+        ScalingDecision decision = autoscaler.decide(500, 5000);
+
+        assertEquals(1, decision.consumers());
+        assertEquals(1, decision.prefetch());
+    }
+
+    @Test
+    void decide_StaysWithinBounds() {
+        ReflectionTestUtils.setField(autoscaler, "consumers", 4);
+
+        assertNull(autoscaler.decide(10_000, Double.NaN));
+    }
+
+    @Test
+    void decide_IdleQueue_ScalesDownAfterConsecutiveTicks() {
+        assertNull(autoscaler.decide(0, Double.NaN));
+
+        ScalingDecision decision = autoscaler.decide(0, Double.NaN);
+
+        assertEquals(1, decision.consumers());
+    }
+
+    @Test
+    void decide_SmallPrefetchDrift_Ignored() {
+        // 1000 ms of buffer at 70 ms per message is 15 messages, less than double the current 10.
+        assertNull(autoscaler.decide(100, 70));
+    }
+
+    @Test
+    void tick_Partitioned_LeavesContainersAlone() {
+        var meterRegistry = new SimpleMeterRegistry();
+        RabbitListenerEndpointRegistry listenerRegistry = mock(RabbitListenerEndpointRegistry.class);
+        AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+        autoscaler = new ListenerAutoscaler(listenerRegistry, amqpAdmin,
+                new EmailPartitions("emails", 2), new EmailMetrics(meterRegistry), meterRegistry);
+
+        autoscaler.tick();
+
+        verifyNoInteractions(listenerRegistry, amqpAdmin);
+    }
+
+    @Test
+    void decide_BatchMode_PrefetchNeverBelowBatchSize() {
+        ReflectionTestUtils.setField(autoscaler, "batchEnabled", true);
+
+        ScalingDecision decision = autoscaler.decide(150, 1000);
+
+        assertEquals(2, decision.consumers());
+        assertEquals(50, decision.prefetch());
+    }
+
+    @Test
+    void tick_PrefetchChange_RestartsConsumersOnlyOnceIdle() {
+        SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+        when(listenerRegistry.getListenerContainer(ListenerAutoscaler.LISTENER_ID)).thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+        when(container.getActiveConsumerCount()).thenReturn(2);
+        ReflectionTestUtils.setField(autoscaler, "consumers", 0);
+        ReflectionTestUtils.setField(autoscaler, "initialPrefetch", 10);
+
+        // 10 ms per message sizes the prefetch to 100 while messages are still waiting.
+        when(amqpAdmin.getQueueInfo("emails")).thenReturn(new QueueInformation("emails", 50, 2));
+        emailMetrics.smtpMessageTimer().record(Duration.ofMillis(10));
+        autoscaler.tick();
+
+        verify(container).setPrefetchCount(100);
+        verify(container, never()).stop();
+
+        when(amqpAdmin.getQueueInfo("emails")).thenReturn(new QueueInformation("emails", 0, 2));
+        autoscaler.tick();
+
+        verify(container).stop();
+        verify(container).start();
+        assertEquals(100, autoscaler.getPrefetch());
+    }
+}
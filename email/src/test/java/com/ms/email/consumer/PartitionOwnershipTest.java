@@ -0,0 +1,56 @@
+package com.ms.email.consumer;
+
+import com.ms.email.configurations.EmailPartitions;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PartitionOwnershipTest {
+
+    @Test
+    void shareOf_SpreadsPartitionsEvenlyOverLiveInstances() {
+        assertEquals(2, PartitionOwnership.shareOf(0, 3, 4));
+        assertEquals(1, PartitionOwnership.shareOf(1, 3, 4));
+        assertEquals(1, PartitionOwnership.shareOf(2, 3, 4));
+        for (int instances = 1; instances <= 10; instances++) {
+            int total = 0;
+            for (int rank = 0; rank < instances; rank++) {
+                int share = PartitionOwnership.shareOf(rank, instances, 8);
+                assertTrue(share == 8 / instances || share == 8 / instances + 1);
+                total += share;
+            }
+            assertEquals(8, total);
+        }
+    }
+
+    @Test
+    void shareOf_UnknownInstance_GetsNothing() {
+        assertEquals(0, PartitionOwnership.shareOf(-1, 2, 4));
+    }
+
+    @Test
+    void rebalance_RunsOnlyTheContainersOfHeldPartitions() {
+        RabbitListenerEndpointRegistry listenerRegistry = mock(RabbitListenerEndpointRegistry.class);
+        MessageListenerContainer held = mock(MessageListenerContainer.class);
+        MessageListenerContainer released = mock(MessageListenerContainer.class);
+        when(released.isRunning()).thenReturn(true);
+        when(listenerRegistry.getListenerContainer("emailListener-0")).thenReturn(held);
+        when(listenerRegistry.getListenerContainer("emailListener-1")).thenReturn(released);
+        PartitionOwnership ownership = spy(new PartitionOwnership(mock(JdbcTemplate.class), listenerRegistry,
+                new EmailPartitions("emails", 2), mock(PlatformTransactionManager.class)));
+        doReturn(Set.of(0)).when(ownership).claimShare();
+
+        ownership.rebalance();
+
+        verify(held).start();
+        verify(released).stop();
+        assertEquals(Set.of(0), ownership.getOwned());
+    }
+}
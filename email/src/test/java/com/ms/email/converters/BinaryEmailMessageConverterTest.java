@@ -0,0 +1,48 @@
+package com.ms.email.converters;
+
+import com.ms.email.dtos.EmailRecordDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BinaryEmailMessageConverterTest {
+
+    @Test
+    void fromMessage_DecodesVersionOneWireFormat() {
+        UUID userId = UUID.randomUUID();
+        byte[] emailTo = "usuário@example.com".getBytes(StandardCharsets.UTF_8);
+        byte[] text = "Olá!".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(2 + 16 + 4 + emailTo.length + 4 + 4 + text.length)
+                .put((byte) 1)
+                .put((byte) 1)
+                .putLong(userId.getMostSignificantBits())
+                .putLong(userId.getLeastSignificantBits())
+                .putInt(emailTo.length).put(emailTo)
+                .putInt(-1)
+                .putInt(text.length).put(text);
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(BinaryEmailMessageConverter.CONTENT_TYPE);
+
+        Object decoded = new BinaryEmailMessageConverter().fromMessage(new Message(body.array(), properties));
+
+        assertEquals(new EmailRecordDto(userId, "usuário@example.com", null, "Olá!"), decoded);
+    }
+
+    @Test
+    void encode_TemplateRoundTrip() {
+        EmailRecordDto emailRecordDto = new EmailRecordDto(UUID.randomUUID(), "a@example.com", null, null,
+                "welcome", Map.of("name", "Giselle"));
+
+        byte[] body = BinaryEmailMessageConverter.encode(emailRecordDto);
+
+        assertEquals(BinaryEmailMessageConverter.SCHEMA_VERSION, body[0]);
+        assertEquals(emailRecordDto, BinaryEmailMessageConverter.decode(body));
+    }
+}
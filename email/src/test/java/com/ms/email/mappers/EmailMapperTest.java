@@ -0,0 +1,37 @@
+package com.ms.email.mappers;
+
+import com.ms.email.dtos.EmailRecordDto;
+import com.ms.email.models.EmailModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailMapperTest {
+
+    private final EmailMapper emailMapper = new EmailMapper();
+
+    @Test
+    void toModel_MapsEveryField() {
+        UUID userId = UUID.randomUUID();
+        EmailRecordDto emailRecordDto = new EmailRecordDto(userId, "test@example.com", "Assunto", "Texto",
+                "welcome", Map.of("name", "Test User"));
+
+        EmailModel emailModel = emailMapper.toModel(emailRecordDto);
+
+        assertEquals(userId, emailModel.getUserId());
+        assertEquals("test@example.com", emailModel.getEmailTo());
+        assertEquals("Assunto", emailModel.getSubject());
+        assertEquals("Texto", emailModel.getText());
+        assertNull(emailModel.getEmailId());
+        assertNull(emailModel.getStatusEmail());
+    }
+
+    @Test
+    void toModel_CoversEveryRecordComponent() {
+        // Fails when a component is added to EmailRecordDto without being mapped (or deliberately skipped) above.
+        assertEquals(6, EmailRecordDto.class.getRecordComponents().length);
+    }
+}
@@ -0,0 +1,138 @@
+package com.ms.email.senders;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class PooledJavaMailSenderTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<Transport> transports = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        connections.set(0);
+        transports.clear();
+    }
+
+    private PooledJavaMailSender sender(long idleTimeout, int maxMessagesPerConnection) {
+        return sender(idleTimeout, maxMessagesPerConnection, 60_000);
+    }
+
+    private PooledJavaMailSender sender(long idleTimeout, int maxMessagesPerConnection, long validateAfterIdle) {
+        var sender = new PooledJavaMailSender(2, idleTimeout, maxMessagesPerConnection, validateAfterIdle) {
+            @Override
+            protected Transport connectTransport() throws MessagingException {
+                connections.incrementAndGet();
+                Transport transport = spy(super.connectTransport());
+                transports.add(transport);
+                return transport;
+            }
+        };
+        sender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        return sender;
+    }
+
+    private SimpleMailMessage message(int index) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("noreply@example.com");
+        message.setTo("user" + index + "@example.com");
+        message.setSubject("Assunto " + index);
+        message.setText("Texto " + index);
+        return message;
+    }
+
+    @Test
+    void send_ReusesConnectionAcrossMessages() {
+        PooledJavaMailSender sender = sender(60_000, 100);
+
+        for (int i = 0; i < 5; i++) {
+            sender.send(message(i));
+        }
+
+        assertEquals(5, greenMail.getReceivedMessages().length);
+        assertEquals(1, connections.get());
+        assertEquals(1, sender.getIdleTransportCount());
+        sender.destroy();
+    }
+
+    @Test
+    void send_RecentlyUsedConnection_NotProbed() throws MessagingException {
+        PooledJavaMailSender sender = sender(60_000, 100);
+
+        for (int i = 0; i < 5; i++) {
+            sender.send(message(i));
+        }
+
+        verify(transports.get(0), never()).isConnected();
+        sender.destroy();
+    }
+
+    @Test
+    void send_IdleConnectionDroppedByServer_ProbedAndReplaced() throws MessagingException {
+        PooledJavaMailSender sender = sender(60_000, 100, 0);
+
+        sender.send(message(1));
+        transports.get(0).close();
+        sender.send(message(2));
+
+        assertEquals(2, greenMail.getReceivedMessages().length);
+        assertEquals(2, connections.get());
+        verify(transports.get(0)).isConnected();
+        sender.destroy();
+    }
+
+    @Test
+    void send_BatchIsPipelinedOnOneConnection() {
+        PooledJavaMailSender sender = sender(60_000, 100);
+
+        sender.send(message(1), message(2), message(3));
+
+        assertEquals(3, greenMail.getReceivedMessages().length);
+        assertEquals(1, connections.get());
+        sender.destroy();
+    }
+
+    @Test
+    void send_RecyclesConnectionAfterMaxMessages() {
+        PooledJavaMailSender sender = sender(60_000, 2);
+
+        sender.send(message(1), message(2), message(3), message(4), message(5));
+
+        assertEquals(5, greenMail.getReceivedMessages().length);
+        assertEquals(3, connections.get());
+        sender.destroy();
+    }
+
+    @Test
+    void evictIdleTransports_ClosesExpiredConnections() {
+        PooledJavaMailSender sender = sender(0, 100);
+
+        sender.send(message(1));
+        assertEquals(1, sender.getIdleTransportCount());
+
+        sender.evictIdleTransports();
+        assertEquals(0, sender.getIdleTransportCount());
+
+        sender.send(message(2));
+        assertEquals(2, greenMail.getReceivedMessages().length);
+        assertEquals(2, connections.get());
+        sender.destroy();
+    }
+}
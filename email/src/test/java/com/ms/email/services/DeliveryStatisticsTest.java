@@ -0,0 +1,89 @@
+package com.ms.email.services;
+
+import com.ms.email.enums.StatusEmail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DeliveryStatisticsTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private JdbcTemplate jdbcTemplate;
+    private DeliveryStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        statistics = new DeliveryStatistics(jdbcTemplate, 60, 2);
+        ReflectionTestUtils.setField(statistics, "instanceId", "test");
+        ReflectionTestUtils.setField(statistics, "checkpointRetentionHours", 24);
+    }
+
+    @Test
+    void record_CountsPerStatusWithinWindow() {
+        long now = 1_000 * MINUTE;
+        statistics.record(StatusEmail.SENT, "a@example.com", now - 90 * MINUTE);
+        statistics.record(StatusEmail.SENT, "a@example.com", now - 30 * MINUTE);
+        statistics.record(StatusEmail.SENT, "b@example.com", now);
+        statistics.record(StatusEmail.FAILED, "c@other.com", now);
+
+        Map<StatusEmail, Long> lastHour = statistics.total.sum(now / MINUTE, 60);
+        assertEquals(2, lastHour.get(StatusEmail.SENT));
+        assertEquals(1, lastHour.get(StatusEmail.FAILED));
+        assertEquals(0, lastHour.get(StatusEmail.RETRYING));
+
+        Map<StatusEmail, Long> lastMinute = statistics.total.sum(now / MINUTE, 1);
+        assertEquals(1, lastMinute.get(StatusEmail.SENT));
+        assertEquals(2, statistics.domains.get("example.com").sum(now / MINUTE, 60).get(StatusEmail.SENT));
+    }
+
+    @Test
+    void record_BucketIsResetWhenRingWrapsAround() {
+        long now = 1_000 * MINUTE;
+        statistics.record(StatusEmail.SENT, "a@example.com", now);
+        statistics.record(StatusEmail.SENT, "a@example.com", now + 60 * MINUTE);
+        // Older than the bucket now holds: dropped instead of polluting it.
+        statistics.record(StatusEmail.SENT, "a@example.com", now);
+
+        assertEquals(1, statistics.total.sum(now / MINUTE + 60, 60).get(StatusEmail.SENT));
+    }
+
+    @Test
+    void record_DomainsPastLimitShareOneRing() {
+        long now = 1_000 * MINUTE;
+        statistics.record(StatusEmail.SENT, "a@one.com", now);
+        statistics.record(StatusEmail.SENT, "a@two.com", now);
+        statistics.record(StatusEmail.SENT, "a@three.com", now);
+        statistics.record(StatusEmail.SENT, "a@four.com", now);
+
+        assertEquals(3, statistics.domains.size());
+        assertEquals(2, statistics.domains.get(DeliveryStatistics.OTHER_DOMAINS).sum(now / MINUTE, 60).get(StatusEmail.SENT));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkpoint_UpsertsTotalsAndDomains() {
+        statistics.record(StatusEmail.SENT, "a@example.com");
+        statistics.record(StatusEmail.SENT, "b@example.com");
+
+        statistics.checkpoint();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO tb_delivery_stats"), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        assertEquals(DeliveryStatistics.ALL_DOMAINS, rows.getValue().get(0)[2]);
+        assertEquals(2L, rows.getValue().get(0)[4]);
+        assertEquals("example.com", rows.getValue().get(1)[2]);
+    }
+}
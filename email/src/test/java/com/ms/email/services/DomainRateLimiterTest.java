@@ -0,0 +1,79 @@
+package com.ms.email.services;
+
+import com.ms.email.configurations.EmailThrottleProperties;
+import com.ms.email.configurations.EmailThrottleProperties.Limit;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DomainRateLimiterTest {
+
+    @Test
+    void bucket_AllowsBurstThenPacesAtRate() {
+        long now = 0;
+        var bucket = new DomainRateLimiter.Bucket(new Limit(10, 3), now);
+
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        long wait = bucket.tryAcquire(now);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait);
+
+        assertEquals(0, bucket.tryAcquire(now + wait));
+        assertTrue(bucket.tryAcquire(now + wait) > 0);
+    }
+
+    @Test
+    void bucket_RefillsWhileIdle() {
+        var bucket = new DomainRateLimiter.Bucket(new Limit(10, 2), 0);
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+        assertFalse(bucket.isFull(0));
+
+        long later = TimeUnit.SECONDS.toNanos(1);
+        assertTrue(bucket.isFull(later));
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(0, bucket.tryAcquire(later));
+    }
+
+    @Test
+    void tryAcquire_DomainsAreIndependentAndConfigurable() {
+        var properties = new EmailThrottleProperties(true, new Limit(1, 1), Map.of("fast.com", new Limit(1000, 5)));
+        var limiter = new DomainRateLimiter(properties);
+
+        assertEquals(0, limiter.tryAcquire("a@slow.com"));
+        assertTrue(limiter.tryAcquire("b@SLOW.com") > 0);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("user" + i + "@fast.com"));
+        }
+    }
+
+    @Test
+    void tryAcquire_Disabled_NeverThrottles() {
+        var limiter = new DomainRateLimiter(new EmailThrottleProperties(false, new Limit(1, 1), null));
+
+        assertEquals(0, limiter.tryAcquire("a@slow.com"));
+        assertEquals(0, limiter.tryAcquire("a@slow.com"));
+    }
+
+    @Test
+    void throttleProperties_NonPositiveRate_Rejected() {
+        var contextRunner = new ApplicationContextRunner().withUserConfiguration(ThrottleConfig.class);
+
+        contextRunner.withPropertyValues("email.throttle.default-limit.rate-per-second=0")
+                .run(context -> assertNotNull(context.getStartupFailure()));
+        contextRunner.withPropertyValues("email.throttle.domains[slow.com].rate-per-second=-1")
+                .run(context -> assertNotNull(context.getStartupFailure()));
+        contextRunner.withPropertyValues("email.throttle.domains[slow.com].rate-per-second=0.5")
+                .run(context -> assertNull(context.getStartupFailure()));
+    }
+
+    @EnableConfigurationProperties(EmailThrottleProperties.class)
+    static class ThrottleConfig {
+    }
+}
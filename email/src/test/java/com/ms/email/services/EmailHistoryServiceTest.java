@@ -0,0 +1,83 @@
+package com.ms.email.services;
+
+import com.ms.email.dtos.EmailHistoryFilter;
+import com.ms.email.dtos.EmailPageDto;
+import com.ms.email.dtos.EmailSummaryDto;
+import com.ms.email.enums.StatusEmail;
+import com.ms.email.exceptions.InvalidCursorException;
+import com.ms.email.repositories.EmailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailHistoryServiceTest {
+
+    @Mock
+    private EmailRepository emailRepository;
+
+    private EmailHistoryService emailHistoryService;
+
+    private final EmailHistoryFilter filter = new EmailHistoryFilter(UUID.randomUUID(), null, null, null);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        emailHistoryService = new EmailHistoryService(emailRepository);
+        ReflectionTestUtils.setField(emailHistoryService, "maxPageSize", 100);
+    }
+
+    private static EmailSummaryDto email(LocalDateTime sendDate) {
+        return new EmailSummaryDto(UUID.randomUUID(), UUID.randomUUID(), "a@example.com", "Assunto", StatusEmail.SENT, sendDate, 0);
+    }
+
+    @Test
+    void getHistory_FullPage_ReturnsCursorOfLastRow() {
+        LocalDateTime now = LocalDateTime.of(2026, 10, 18, 12, 30, 15, 123_456_000);
+        EmailSummaryDto first = email(now);
+        EmailSummaryDto second = email(now.minusSeconds(1));
+        when(emailRepository.findHistory(filter, null, null, 3)).thenReturn(List.of(first, second, email(now.minusSeconds(2))));
+
+        EmailPageDto page = emailHistoryService.getHistory(filter, null, 2);
+
+        assertEquals(List.of(first, second), page.emails());
+        assertNotNull(page.nextCursor());
+
+        emailHistoryService.getHistory(filter, page.nextCursor(), 2);
+        verify(emailRepository).findHistory(filter, second.sendDateEmail(), second.emailId(), 3);
+    }
+
+    @Test
+    void getHistory_LastPage_HasNoCursor() {
+        when(emailRepository.findHistory(eq(filter), isNull(), isNull(), eq(21))).thenReturn(List.of(email(LocalDateTime.now())));
+
+        EmailPageDto page = emailHistoryService.getHistory(filter, "", 20);
+
+        assertEquals(1, page.emails().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getHistory_SizeIsCapped() {
+        when(emailRepository.findHistory(any(), any(), any(), anyInt())).thenReturn(List.of());
+
+        emailHistoryService.getHistory(filter, null, 10_000);
+
+        verify(emailRepository).findHistory(filter, null, null, 101);
+    }
+
+    @Test
+    void getHistory_InvalidCursor_Throws() {
+        assertThrows(InvalidCursorException.class, () -> emailHistoryService.getHistory(filter, "not-a-cursor!", 20));
+        assertThrows(InvalidCursorException.class, () -> emailHistoryService.getHistory(filter, "AAAA", 20));
+    }
+}
@@ -0,0 +1,113 @@
+package com.ms.email.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailPartitionMaintenanceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailPartitionMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        maintenance = new EmailPartitionMaintenance(jdbcTemplate, transactionManager);
+        ReflectionTestUtils.setField(maintenance, "premakeMonths", 2);
+        ReflectionTestUtils.setField(maintenance, "retentionMonths", 12);
+        ReflectionTestUtils.setField(maintenance, "archiveMode", "drop");
+        ReflectionTestUtils.setField(maintenance, "archiveSchema", "email_archive");
+    }
+
+    @Test
+    void createUpcoming_CreatesCurrentAndPremadeMonths() {
+        maintenance.createUpcoming(YearMonth.of(2026, 11));
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS tb_emails_p2026_11 PARTITION OF tb_emails "
+                + "FOR VALUES FROM ('2026-11-01') TO ('2026-12-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS tb_emails_p2026_12 PARTITION OF tb_emails "
+                + "FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS tb_emails_p2027_01 PARTITION OF tb_emails "
+                + "FOR VALUES FROM ('2027-01-01') TO ('2027-02-01')");
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void retireExpired_DropsOnlyPartitionsPastRetentionWithoutPendingRetries() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("tb_emails")))
+                .thenReturn(List.of("tb_emails_p2025_09", "tb_emails_p2025_10", "tb_emails_p2025_11", "tb_emails_other"));
+        when(jdbcTemplate.queryForObject(contains("tb_emails_p2025_09 WHERE status_email IN (2, 4)"), eq(Boolean.class))).thenReturn(false);
+        when(jdbcTemplate.queryForObject(contains("tb_emails_p2025_10"), eq(Boolean.class))).thenReturn(true);
+
+        maintenance.retireExpired(YearMonth.of(2026, 11));
+
+        verify(jdbcTemplate).execute("ALTER TABLE tb_emails DETACH PARTITION tb_emails_p2025_09");
+        verify(jdbcTemplate).execute("DROP TABLE tb_emails_p2025_09");
+        verify(jdbcTemplate, never()).execute(contains("tb_emails_p2025_10"));
+        verify(jdbcTemplate, never()).execute(contains("tb_emails_p2025_11"));
+    }
+
+    @Test
+    void maintain_LockHeldElsewhere_Skipped() throws SQLException {
+        Connection connection = lockConnection(false);
+
+        maintenance.maintain();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Boolean.class), any());
+        verify(connection, times(1)).prepareStatement(anyString());
+    }
+
+    @Test
+    void maintain_LockAcquired_RunsAndUnlocks() throws SQLException {
+        Connection connection = lockConnection(true);
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class), eq("tb_emails"))).thenReturn(true);
+
+        maintenance.maintain();
+
+        verify(jdbcTemplate, times(3)).execute(startsWith("CREATE TABLE IF NOT EXISTS"));
+        verify(connection).prepareStatement("SELECT pg_advisory_unlock(hashtext(?))");
+    }
+
+    // Runs the connection callback against a mock connection whose advisory lock calls all return the given result.
+    private Connection lockConnection(boolean acquired) throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getBoolean(1)).thenReturn(acquired);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        return connection;
+    }
+
+    @Test
+    void monthOf_ParsesOnlyMonthlyPartitions() {
+        assertEquals(YearMonth.of(2026, 3), EmailPartitionMaintenance.monthOf("tb_emails_p2026_03"));
+        assertNull(EmailPartitionMaintenance.monthOf("tb_emails_default"));
+        assertNull(EmailPartitionMaintenance.monthOf("tb_emails_pxx"));
+    }
+}
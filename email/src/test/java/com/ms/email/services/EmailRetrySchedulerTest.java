@@ -0,0 +1,147 @@
+package com.ms.email.services;
+
+import com.ms.email.enums.StatusEmail;
+import com.ms.email.models.EmailModel;
+import com.ms.email.repositories.EmailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailRetrySchedulerTest {
+
+    @Mock
+    private EmailRepository emailRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    // Resends only run when the test says so, like slow SMTP sends on a real executor.
+    private final Queue<Runnable> pendingSends = new ArrayDeque<>();
+
+    private EmailRetryScheduler emailRetryScheduler;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(emailRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        emailRetryScheduler = new EmailRetryScheduler(emailRepository, emailService, pendingSends::add, taskScheduler, transactionManager, 2);
+        ReflectionTestUtils.setField(emailRetryScheduler, "batchSize", 50);
+        ReflectionTestUtils.setField(emailRetryScheduler, "lease", 60_000L);
+        ReflectionTestUtils.setField(emailRetryScheduler, "pollInterval", 10_000L);
+    }
+
+    @Test
+    void retryDueEmails_FullClaim_FinishedSendClaimsAgainWithoutWaitingForPoll() {
+        when(emailRepository.claimDue(anyCollection(), any(LocalDateTime.class), anyInt()))
+                .thenReturn(emails(2))
+                .thenReturn(emails(1))
+                .thenReturn(emails(0));
+
+        emailRetryScheduler.retryDueEmails();
+        assertEquals(2, pendingSends.size());
+        verify(emailRepository, times(1)).claimDue(anyCollection(), any(LocalDateTime.class), eq(2));
+
+        pendingSends.poll().run();
+
+        verify(emailRepository, times(1)).claimDue(anyCollection(), any(LocalDateTime.class), eq(1));
+        assertEquals(2, pendingSends.size());
+        pendingSends.poll().run();
+        verify(emailRepository, times(3)).claimDue(anyCollection(), any(LocalDateTime.class), anyInt());
+    }
+
+    @Test
+    void retryDueEmails_ShortClaim_WaitsForNextPoll() {
+        when(emailRepository.claimDue(anyCollection(), any(LocalDateTime.class), anyInt())).thenReturn(emails(1));
+
+        emailRetryScheduler.retryDueEmails();
+        pendingSends.poll().run();
+
+        verify(emailRepository, times(1)).claimDue(anyCollection(), any(LocalDateTime.class), anyInt());
+        verify(emailService, times(1)).sendEmail(any(EmailModel.class));
+    }
+
+    @Test
+    void retryDueEmails_NoFreePermits_NothingClaimed() {
+        when(emailRepository.claimDue(anyCollection(), any(LocalDateTime.class), anyInt())).thenReturn(emails(2));
+        emailRetryScheduler.retryDueEmails();
+
+        emailRetryScheduler.retryDueEmails();
+
+        verify(emailRepository, times(1)).claimDue(anyCollection(), any(LocalDateTime.class), anyInt());
+    }
+
+    @Test
+    void retryDueEmails_ShortClaim_WakesUpAtNextPendingAttempt() {
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plusSeconds(2);
+        when(emailRepository.claimDue(anyCollection(), any(LocalDateTime.class), anyInt())).thenReturn(emails(0));
+        when(emailRepository.findNextAttemptAt(EmailRetryScheduler.DUE_STATUSES)).thenReturn(nextAttemptAt);
+
+        emailRetryScheduler.retryDueEmails();
+
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), eq(nextAttemptAt.atZone(ZoneId.systemDefault()).toInstant()));
+    }
+
+    @Test
+    void retryDueEmails_NextAttemptAfterPoll_LeftToPoll() {
+        when(emailRepository.claimDue(anyCollection(), any(LocalDateTime.class), anyInt())).thenReturn(emails(0));
+        when(emailRepository.findNextAttemptAt(EmailRetryScheduler.DUE_STATUSES)).thenReturn(LocalDateTime.now().plusMinutes(5));
+
+        emailRetryScheduler.retryDueEmails();
+
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void retry_DeferredAgain_WakesUpWhenDomainHasCapacity() {
+        when(emailRepository.claimDue(anyCollection(), any(LocalDateTime.class), anyInt())).thenReturn(emails(1));
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plusSeconds(1);
+        when(emailService.sendEmail(any(EmailModel.class))).thenAnswer(invocation -> {
+            EmailModel emailModel = invocation.getArgument(0);
+            emailModel.setStatusEmail(StatusEmail.DEFERRED);
+            emailModel.setNextAttemptAt(nextAttemptAt);
+            return emailModel;
+        });
+
+        emailRetryScheduler.retryDueEmails();
+        // The claim was short and nothing was pending yet.
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+        pendingSends.poll().run();
+
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), eq(nextAttemptAt.atZone(ZoneId.systemDefault()).toInstant()));
+    }
+
+    private static List<EmailModel> emails(int count) {
+        return new ArrayList<>(Stream.generate(() -> {
+            EmailModel emailModel = new EmailModel();
+            emailModel.setEmailId(UUID.randomUUID());
+            return emailModel;
+        }).limit(count).toList());
+    }
+}
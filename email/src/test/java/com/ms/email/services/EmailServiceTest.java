@@ -0,0 +1,240 @@
+package com.ms.email.services;
+
+import com.ms.email.enums.StatusEmail;
+import com.ms.email.metrics.EmailMetrics;
+import com.ms.email.models.EmailModel;
+import com.ms.email.repositories.EmailRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import jakarta.mail.MessagingException;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailServiceTest {
+
+    @Mock
+    private EmailRepository emailRepository;
+
+    @Mock
+    private JavaMailSender emailSender;
+
+    @Mock
+    private MessageDeduplicator messageDeduplicator;
+
+    @Mock
+    private DomainRateLimiter domainRateLimiter;
+
+    @Mock
+    private DeliveryStatistics deliveryStatistics;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private EmailMetrics emailMetrics = new EmailMetrics(meterRegistry);
+
+    @InjectMocks
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(emailService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(emailService, "baseDelay", 1000L);
+        ReflectionTestUtils.setField(emailService, "maxDelay", 4000L);
+    }
+
+    @Test
+    void sendEmail_MailException_ScheduledForRetry() {
+        stubSave();
+        doThrow(new MailSendException("indisponível")).when(emailSender).send(any(SimpleMailMessage.class));
+        LocalDateTime before = LocalDateTime.now();
+
+        EmailModel result = emailService.sendEmail(newEmail());
+
+        assertEquals(StatusEmail.RETRYING, result.getStatusEmail());
+        assertEquals(1, result.getAttemptCount());
+        assertFalse(result.getNextAttemptAt().isBefore(before));
+        assertFalse(result.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(1)));
+        assertEquals(1, meterRegistry.counter("email.status", "status", "RETRYING").count());
+        assertEquals(1, meterRegistry.timer("email.smtp.send").count());
+        verify(deliveryStatistics).record(StatusEmail.RETRYING, result.getEmailTo());
+    }
+
+    @Test
+    void sendEmail_LastAttemptFails_MarkedFailed() {
+        stubSave();
+        doThrow(new MailSendException("indisponível")).when(emailSender).send(any(SimpleMailMessage.class));
+        EmailModel emailModel = newEmail();
+        emailModel.setAttemptCount(2);
+
+        EmailModel result = emailService.sendEmail(emailModel);
+
+        assertEquals(StatusEmail.FAILED, result.getStatusEmail());
+        assertEquals(3, result.getAttemptCount());
+        assertNull(result.getNextAttemptAt());
+    }
+
+    @Test
+    void sendEmail_RetrySucceeds_KeepsOriginalSendDate() {
+        stubSave();
+        EmailModel emailModel = newEmail();
+        LocalDateTime firstAttempt = LocalDateTime.now().minusMinutes(5);
+        emailModel.setSendDateEmail(firstAttempt);
+        emailModel.setStatusEmail(StatusEmail.RETRYING);
+        emailModel.setNextAttemptAt(LocalDateTime.now());
+
+        EmailModel result = emailService.sendEmail(emailModel);
+
+        assertEquals(StatusEmail.SENT, result.getStatusEmail());
+        assertEquals(firstAttempt, result.getSendDateEmail());
+        assertEquals(1, meterRegistry.counter("email.status", "status", "SENT").count());
+        assertEquals(1, meterRegistry.timer("email.db.save").count());
+        assertNull(result.getNextAttemptAt());
+    }
+
+    @Test
+    void sendEmail_DuplicateMessage_NotSent() {
+        when(messageDeduplicator.claim("message-1")).thenReturn(false);
+
+        assertTrue(emailService.sendEmail("message-1", newEmail()).isEmpty());
+        verify(emailSender, never()).send(any(SimpleMailMessage.class));
+        verify(emailRepository, never()).save(any(EmailModel.class));
+    }
+
+    @Test
+    void sendEmails_OnlyClaimedMessagesSent() {
+        when(messageDeduplicator.claim("message-1")).thenReturn(true);
+        when(messageDeduplicator.claim("message-2")).thenReturn(false);
+        when(emailRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        EmailModel first = newEmail();
+
+        List<EmailModel> result = emailService.sendEmails(Arrays.asList("message-1", "message-2", null),
+                List.of(first, newEmail(), newEmail()));
+
+        assertEquals(2, result.size());
+        assertSame(first, result.get(0));
+        verify(emailSender).send(any(SimpleMailMessage[].class));
+    }
+
+    @Test
+    void sendEmails_AllSent_OneSmtpCallAndOneSave() {
+        when(emailRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        List<EmailModel> emailModels = List.of(newEmail(), newEmail(), newEmail());
+
+        List<EmailModel> result = emailService.sendEmails(emailModels);
+
+        assertTrue(result.stream().allMatch(emailModel -> emailModel.getStatusEmail() == StatusEmail.SENT));
+        ArgumentCaptor<SimpleMailMessage[]> captor = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(emailSender, times(1)).send(captor.capture());
+        assertEquals(3, captor.getValue().length);
+        verify(emailRepository, times(1)).saveAllAndFlush(emailModels);
+        assertEquals(3, meterRegistry.counter("email.status", "status", "SENT").count());
+        assertEquals(1, meterRegistry.timer("email.smtp.send").count());
+        assertEquals(3, meterRegistry.timer("email.smtp.message").count());
+    }
+
+    @Test
+    void sendEmails_PartialFailure_OnlyFailedMessagesRetried() {
+        when(emailRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        // The messages are equal by value, so only identity can tell which one failed.
+        doAnswer(invocation -> {
+            SimpleMailMessage secondMessage = invocation.getArgument(1);
+            throw new MailSendException(Map.of(secondMessage, new MessagingException("recusado")));
+        }).when(emailSender).send(any(SimpleMailMessage[].class));
+        EmailModel first = newEmail();
+        EmailModel failed = newEmail();
+        EmailModel third = newEmail();
+
+        emailService.sendEmails(List.of(first, failed, third));
+
+        assertEquals(StatusEmail.SENT, first.getStatusEmail());
+        assertEquals(StatusEmail.RETRYING, failed.getStatusEmail());
+        assertEquals(1, failed.getAttemptCount());
+        assertEquals(StatusEmail.SENT, third.getStatusEmail());
+        verify(emailRepository, times(1)).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void sendEmails_GenericMailException_AllRetried() {
+        when(emailRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new MailAuthenticationException("credenciais inválidas")).when(emailSender).send(any(SimpleMailMessage[].class));
+        List<EmailModel> emailModels = List.of(newEmail(), newEmail());
+
+        emailService.sendEmails(emailModels);
+
+        assertTrue(emailModels.stream().allMatch(emailModel -> emailModel.getStatusEmail() == StatusEmail.RETRYING));
+        assertTrue(emailModels.stream().allMatch(emailModel -> emailModel.getAttemptCount() == 1));
+        verify(emailRepository, times(1)).saveAllAndFlush(emailModels);
+    }
+
+    @Test
+    void sendEmail_Throttled_DeferredWithoutAttempt() {
+        stubSave();
+        when(domainRateLimiter.tryAcquire("test@example.com")).thenReturn(TimeUnit.SECONDS.toNanos(2));
+
+        EmailModel result = emailService.sendEmail(newEmail());
+
+        assertEquals(StatusEmail.DEFERRED, result.getStatusEmail());
+        assertEquals(0, result.getAttemptCount());
+        assertTrue(result.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(1)));
+        verify(emailSender, never()).send(any(SimpleMailMessage.class));
+    }
+
+    @Test
+    void sendEmails_ThrottledDomainDeferred_OthersSent() {
+        when(emailRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(domainRateLimiter.tryAcquire("slow@throttled.com")).thenReturn(TimeUnit.SECONDS.toNanos(1));
+        EmailModel throttled = newEmail();
+        throttled.setEmailTo("slow@throttled.com");
+        EmailModel sent = newEmail();
+
+        emailService.sendEmails(List.of(throttled, sent));
+
+        assertEquals(StatusEmail.DEFERRED, throttled.getStatusEmail());
+        assertEquals(StatusEmail.SENT, sent.getStatusEmail());
+        ArgumentCaptor<SimpleMailMessage[]> captor = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(emailSender).send(captor.capture());
+        assertEquals(1, captor.getValue().length);
+    }
+
+    @Test
+    void backoff_CappedByMaxDelay() {
+        for (int attempt = 1; attempt <= 40; attempt++) {
+            long delay = emailService.backoff(attempt);
+            assertTrue(delay >= 0 && delay <= 4000, "attempt " + attempt + " -> " + delay);
+        }
+    }
+
+    private void stubSave() {
+        when(emailRepository.saveAndFlush(any(EmailModel.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private EmailModel newEmail() {
+        EmailModel emailModel = new EmailModel();
+        emailModel.setEmailTo("test@example.com");
+        emailModel.setSubject("Assunto");
+        emailModel.setText("Texto");
+        return emailModel;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ms.email.services;
+
+import com.ms.email.repositories.ProcessedMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MessageDeduplicatorTest {
+
+    @Mock
+    private ProcessedMessageRepository processedMessageRepository;
+
+    private MessageDeduplicator messageDeduplicator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        messageDeduplicator = new MessageDeduplicator(processedMessageRepository, 2);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void claim_NewMessage_CachedOnlyAfterCommit() {
+        when(processedMessageRepository.insertIfAbsent(eq("message-1"), any(LocalDateTime.class))).thenReturn(1);
+
+        assertTrue(messageDeduplicator.claim("message-1"));
+        assertFalse(messageDeduplicator.isDuplicate("message-1"));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertTrue(messageDeduplicator.isDuplicate("message-1"));
+        assertFalse(messageDeduplicator.claim("message-1"));
+        verify(processedMessageRepository, times(1)).insertIfAbsent(eq("message-1"), any(LocalDateTime.class));
+    }
+
+    @Test
+    void claim_RecordedByAnotherInstance_Rejected() {
+        when(processedMessageRepository.insertIfAbsent(eq("message-1"), any(LocalDateTime.class))).thenReturn(0);
+
+        assertFalse(messageDeduplicator.claim("message-1"));
+        assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+    }
+
+    @Test
+    void isDuplicate_EvictsLeastRecentlyUsed() {
+        messageDeduplicator.remember("message-1");
+        messageDeduplicator.remember("message-2");
+        messageDeduplicator.isDuplicate("message-1");
+        messageDeduplicator.remember("message-3");
+
+        assertTrue(messageDeduplicator.isDuplicate("message-1"));
+        assertFalse(messageDeduplicator.isDuplicate("message-2"));
+        assertTrue(messageDeduplicator.isDuplicate("message-3"));
+    }
+}
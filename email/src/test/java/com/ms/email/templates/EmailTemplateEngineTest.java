@@ -0,0 +1,42 @@
+package com.ms.email.templates;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailTemplateEngineTest {
+
+    private EmailTemplateEngine newEngine() {
+        EmailTemplateEngine engine = new EmailTemplateEngine(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(engine, "location", "classpath:/templates/email/");
+        return engine;
+    }
+
+    @Test
+    void render_Welcome() {
+        RenderedEmail rendered = newEngine().render("welcome", Map.of("name", "Giselle"));
+
+        assertEquals("Cadastro realizado com sucesso!", rendered.subject());
+        assertTrue(rendered.text().contains("Giselle"));
+        assertFalse(rendered.text().contains("{{"));
+    }
+
+    @Test
+    void render_MissingVariable_RendersEmpty() {
+        RenderedEmail rendered = newEngine().render("welcome", Map.of());
+
+        assertFalse(rendered.text().contains("{{"));
+    }
+
+    @Test
+    void render_UnknownTemplate_ExceptionThrown() {
+        EmailTemplateEngine engine = newEngine();
+
+        assertThrows(TemplateNotFoundException.class, () -> engine.render("missing", Map.of()));
+        assertThrows(TemplateNotFoundException.class, () -> engine.render("../secret", Map.of()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.ms.user.configurations;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS_CACHE = "users";
+
+    @Value("${users.cache.spec:maximumSize=10000,expireAfterWrite=60s,recordStats}")
+    private String usersCacheSpec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        var caffeineCacheManager = new CaffeineCacheManager(USERS_CACHE);
+        caffeineCacheManager.setCacheSpecification(usersCacheSpec);
+        // Evictions run after commit, so a concurrent miss cannot put the pre-update row back in the cache.
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -1,16 +1,45 @@
 package com.ms.user.configurations;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.user.converters.BinaryEmailMessageConverter;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class RabbitMQConfig {
 
+    @Value("${broker.message.codec:json}")
+    private String codec;
+
     @Bean
     public Jackson2JsonMessageConverter messageConverter() {
         ObjectMapper objectMapper = new ObjectMapper();
         return new Jackson2JsonMessageConverter(objectMapper);
     }
+
+    @Bean
+    public BinaryEmailMessageConverter binaryMessageConverter() {
+        return new BinaryEmailMessageConverter();
+    }
+
+    /**
+     * Publishes with the codec selected by {@code broker.message.codec} and decodes by content type,
+     * so JSON and binary messages can coexist on the queue during a rollout.
+     */
+    @Bean
+    @Primary
+    public ContentTypeDelegatingMessageConverter rabbitMessageConverter(Jackson2JsonMessageConverter messageConverter,
+                                                                        BinaryEmailMessageConverter binaryMessageConverter) {
+        MessageConverter publishConverter = "binary".equalsIgnoreCase(codec) ? binaryMessageConverter : messageConverter;
+        var converter = new ContentTypeDelegatingMessageConverter(publishConverter);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, messageConverter);
+        converter.addDelegate(BinaryEmailMessageConverter.CONTENT_TYPE, binaryMessageConverter);
+        return converter;
+    }
 }
@@ -1,16 +1,26 @@
 package com.ms.user.controllers;
 
+import com.ms.user.dtos.UserImportResultDto;
+import com.ms.user.dtos.UserPageDto;
 import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.exceptions.VersionConflictException;
+import com.ms.user.mappers.UserMapper;
 import com.ms.user.models.UserModel;
+import com.ms.user.services.UserExportService;
+import com.ms.user.services.UserImportService;
 import com.ms.user.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -22,44 +32,86 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private UserMapper userMapper;
+
     @GetMapping
-    public ResponseEntity<List<UserModel>> getAllUsers() {
-        List<UserModel> users = userService.getAllUsers();
-        log.info("Encontrado(s) {} usuários", users.size());
-        return ResponseEntity.ok(users);
+    public ResponseEntity<UserPageDto> getAllUsers(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int size) {
+        UserPageDto page = userService.getUsers(cursor, size);
+        log.info("Encontrado(s) {} usuários", page.users().size());
+        return ResponseEntity.ok(page);
     }
 
     @PostMapping
     public ResponseEntity<UserModel> saveUser(@RequestBody @Valid UserRecordDto userRecordDTO) {
-        var userModel = new UserModel();
-        BeanUtils.copyProperties(userRecordDTO, userModel);
+        var userModel = userMapper.toModel(userRecordDTO);
         UserModel savedUser = userService.save(userModel);
         log.info("Usuário com email {} foi registrado com sucesso!", savedUser.getEmail());
         return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
     }
 
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<List<UserImportResultDto>> saveUsers(HttpServletRequest request) throws IOException {
+        List<UserImportResultDto> results = userImportService.importUsers(request.getInputStream());
+        log.info("Importação em lote processou {} registro(s)", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        long exported = userExportService.exportUsers(response.getOutputStream());
+        log.info("Exportação enviou {} usuário(s)", exported);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UserModel> getUserById(@PathVariable UUID id) {
         UserModel userModel = userService.getUserById(id);
         log.info("Usuário com ID {} encontrado com sucesso!", id);
-        return ResponseEntity.ok(userModel);
+        return ResponseEntity.ok().eTag(String.valueOf(userModel.getVersion())).body(userModel);
     }
 
+    /** With an {@code If-Match} header the user is only deleted if it is still at that version; otherwise 409. */
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> deleteUser(@PathVariable UUID id) {
-        userService.deleteById(id);
+    public ResponseEntity<String> deleteUser(@PathVariable UUID id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.deleteById(id, expectedVersion(id, ifMatch));
         String message = "Usuário com ID " + id + " foi removido com sucesso.";
         log.info("Usuário com ID {} deletado com sucesso!", id);
         return ResponseEntity.ok(message);
     }
 
+    /** Same {@code If-Match} contract as {@link #deleteUser}; the response carries the new version as ETag. */
     @PutMapping("/{id}")
-    public ResponseEntity<String> updateUser(@PathVariable UUID id, @RequestBody @Valid UserRecordDto userRecordDTO) {
-        var userModel = new UserModel();
-        BeanUtils.copyProperties(userRecordDTO, userModel);
-        userService.updateUser(id, userModel);
+    public ResponseEntity<String> updateUser(@PathVariable UUID id, @RequestBody @Valid UserRecordDto userRecordDTO,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        var userModel = userMapper.toModel(userRecordDTO);
+        UserModel updatedUser = userService.updateUser(id, userModel, expectedVersion(id, ifMatch));
         String message = "Usuário com ID " + id + " foi atualizado com sucesso!";
         log.info("Usuário com ID {} atualizado com sucesso", id);
-        return ResponseEntity.ok(message);
+        return ResponseEntity.ok().eTag(String.valueOf(updatedUser.getVersion())).body(message);
+    }
+
+    // No header or "*" means an unconditional write. A tag that is not one of our versions can never match.
+    private static Long expectedVersion(UUID id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new VersionConflictException(id);
+        }
     }
 }
@@ -0,0 +1,158 @@
+package com.ms.user.converters;
+
+import com.ms.user.dtos.EmailDto;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact codec for {@link EmailDto}, shared with the email service through the wire format:
+ * <pre>
+ * byte    schema version
+ * byte    1 if userId is present, 0 otherwise
+ * 16 byte userId (most significant bits first), only when present
+ * string  emailTo, subject, text
+ * string  templateId                                   (version 2+)
+ * int32   variable count (-1 for null), then key/value string pairs (version 2+)
+ * </pre>
+ * Strings are an int32 byte length (-1 for null) followed by UTF-8 bytes. Version 1 payloads
+ * are still decoded.
+ */
+public class BinaryEmailMessageConverter extends AbstractMessageConverter {
+
+    public static final String CONTENT_TYPE = "application/x-ms-email";
+    public static final byte SCHEMA_VERSION = 2;
+
+    @Override
+    protected Message createMessage(Object object, MessageProperties messageProperties) {
+        if (!(object instanceof EmailDto emailDto)) {
+            throw new MessageConversionException("Tipo não suportado pelo codec binário: " + object.getClass().getName());
+        }
+        byte[] body = encode(emailDto);
+        messageProperties.setContentType(CONTENT_TYPE);
+        messageProperties.setContentLength(body.length);
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        return decode(message.getBody());
+    }
+
+    public static byte[] encode(EmailDto emailDto) {
+        byte[] emailTo = utf8(emailDto.getEmailTo());
+        byte[] subject = utf8(emailDto.getSubject());
+        byte[] text = utf8(emailDto.getText());
+        byte[] templateId = utf8(emailDto.getTemplateId());
+        Map<String, String> variables = emailDto.getVariables();
+
+        int size = 2 + (emailDto.getUserId() != null ? 16 : 0)
+                + sizeOf(emailTo) + sizeOf(subject) + sizeOf(text) + sizeOf(templateId) + 4;
+        byte[][] encodedVariables = null;
+        if (variables != null) {
+            encodedVariables = new byte[variables.size() * 2][];
+            int i = 0;
+            for (Map.Entry<String, String> variable : variables.entrySet()) {
+                encodedVariables[i] = utf8(variable.getKey());
+                encodedVariables[i + 1] = utf8(variable.getValue());
+                size += sizeOf(encodedVariables[i]) + sizeOf(encodedVariables[i + 1]);
+                i += 2;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(SCHEMA_VERSION);
+        if (emailDto.getUserId() != null) {
+            buffer.put((byte) 1)
+                    .putLong(emailDto.getUserId().getMostSignificantBits())
+                    .putLong(emailDto.getUserId().getLeastSignificantBits());
+        } else {
+            buffer.put((byte) 0);
+        }
+        putString(buffer, emailTo);
+        putString(buffer, subject);
+        putString(buffer, text);
+        putString(buffer, templateId);
+        if (encodedVariables == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(encodedVariables.length / 2);
+            for (byte[] value : encodedVariables) {
+                putString(buffer, value);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static EmailDto decode(byte[] body) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            byte version = buffer.get();
+            if (version < 1 || version > SCHEMA_VERSION) {
+                throw new MessageConversionException("Versão de esquema não suportada: " + version);
+            }
+            UUID userId = buffer.get() == 1 ? new UUID(buffer.getLong(), buffer.getLong()) : null;
+            var emailDto = new EmailDto(userId, getString(buffer), getString(buffer), getString(buffer));
+            if (version >= 2) {
+                emailDto.setTemplateId(getString(buffer));
+                emailDto.setVariables(getVariables(buffer));
+            }
+            return emailDto;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new MessageConversionException("Mensagem binária truncada ou corrompida", e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int sizeOf(byte[] value) {
+        return 4 + (value != null ? value.length : 0);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static Map<String, String> getVariables(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0) {
+            return null;
+        }
+        // Each pair needs at least two length prefixes, which bounds a corrupted count.
+        if (count > buffer.remaining() / 8) {
+            throw new BufferUnderflowException();
+        }
+        Map<String, String> variables = new LinkedHashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            variables.put(getString(buffer), getString(buffer));
+        }
+        return variables;
+    }
+}
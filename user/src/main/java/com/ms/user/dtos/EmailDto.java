@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
 import java.util.UUID;
 
 @Data
@@ -14,4 +15,10 @@ public class EmailDto {
     private String emailTo;
     private String subject;
     private String text;
+    private String templateId;
+    private Map<String, String> variables;
+
+    public EmailDto(UUID userId, String emailTo, String subject, String text) {
+        this(userId, emailTo, subject, text, null, null);
+    }
 }
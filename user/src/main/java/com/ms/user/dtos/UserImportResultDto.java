@@ -0,0 +1,19 @@
+package com.ms.user.dtos;
+
+import com.ms.user.enums.ImportStatus;
+
+import java.util.UUID;
+
+public record UserImportResultDto(
+        int index,
+
+        String email,
+
+        ImportStatus status,
+
+        UUID userId,
+
+        String message) {
+
+
+}
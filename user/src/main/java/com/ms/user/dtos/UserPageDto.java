@@ -0,0 +1,13 @@
+package com.ms.user.dtos;
+
+import com.ms.user.models.UserModel;
+
+import java.util.List;
+
+public record UserPageDto(
+        List<UserModel> users,
+
+        String nextCursor) {
+
+
+}
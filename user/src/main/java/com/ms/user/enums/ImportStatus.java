@@ -0,0 +1,7 @@
+package com.ms.user.enums;
+
+public enum ImportStatus {
+    CREATED,
+    DUPLICATE,
+    INVALID;
+}
@@ -0,0 +1,7 @@
+package com.ms.user.exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String cursor) {
+        super("Cursor de paginação inválido.");
+    }
+}
@@ -0,0 +1,9 @@
+package com.ms.user.exceptions;
+
+import java.util.UUID;
+
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(UUID userId) {
+        super("O usuário foi alterado por outra requisição. Recarregue-o e tente novamente.");
+    }
+}
@@ -0,0 +1,21 @@
+package com.ms.user.mappers;
+
+import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.models.UserModel;
+import org.springframework.stereotype.Component;
+
+/**
+ * Explicit field copies instead of {@code BeanUtils.copyProperties}, which resolves property
+ * descriptors and invokes accessors reflectively on every request. A new field on either side
+ * has to be added here; {@code UserMapperTest} fails until it is.
+ */
+@Component
+public class UserMapper {
+
+    public UserModel toModel(UserRecordDto userRecordDto) {
+        var userModel = new UserModel();
+        userModel.setName(userRecordDto.name());
+        userModel.setEmail(userRecordDto.email());
+        return userModel;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ms.user.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "TB_OUTBOX", indexes = @Index(name = "idx_outbox_created_at", columnList = "createdAt"))
+@Data
+public class OutboxEventModel implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID eventId;
+    private UUID aggregateId;
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    // Set while a relay has the event in flight; other relays skip it until the lease runs out.
+    private LocalDateTime claimedUntil;
+    // Set when the payload cannot be read; the event is kept for inspection but never claimed again.
+    private LocalDateTime deadLetteredAt;
+
+    public OutboxEventModel(UUID eventId, UUID aggregateId, String payload, LocalDateTime createdAt) {
+        this.eventId = eventId;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
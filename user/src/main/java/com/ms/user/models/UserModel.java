@@ -20,12 +20,16 @@ public class UserModel implements Serializable {
     @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID userId;
     private String name;
+    @Column(unique = true)
     private String email;
+    // The default lets schema update add the column to a table that already has rows.
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private long version;
 
-    @PrePersist
-    public void prePersist() {
-        if (userId == null) {
-            userId = UUID.randomUUID();
-        }
+    public UserModel(UUID userId, String name, String email) {
+        this.userId = userId;
+        this.name = name;
+        this.email = email;
     }
 }
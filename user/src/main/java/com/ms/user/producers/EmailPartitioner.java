@@ -0,0 +1,48 @@
+package com.ms.user.producers;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Maps a user to one of {@code broker.queue.email.partitions} email queues, so all of a user's
+ * emails land on the same queue and keep their order. Uses jump consistent hashing: growing from
+ * N to N + 1 partitions moves only about 1/(N + 1) of the users.
+ */
+@Component
+public class EmailPartitioner {
+
+    final int partitions;
+
+    public EmailPartitioner(@Value("${broker.queue.email.partitions:1}") int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("broker.queue.email.partitions deve ser pelo menos 1");
+        }
+        this.partitions = partitions;
+    }
+
+    /** With a single partition messages go straight to the legacy queue through the default exchange. */
+    public boolean isPartitioned() {
+        return partitions > 1;
+    }
+
+    public int partitionFor(UUID userId) {
+        if (userId == null) {
+            return 0;
+        }
+        return jumpConsistentHash(userId.getMostSignificantBits() ^ userId.getLeastSignificantBits(), partitions);
+    }
+
+    // Lamping and Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm".
+    static int jumpConsistentHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
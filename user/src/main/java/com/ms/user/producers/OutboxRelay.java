@@ -0,0 +1,113 @@
+package com.ms.user.producers;
+
+import com.ms.user.dtos.EmailDto;
+import com.ms.user.models.OutboxEventModel;
+import com.ms.user.repositories.OutboxEventRepository;
+import com.ms.user.services.OutboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    final OutboxEventRepository outboxEventRepository;
+    final OutboxService outboxService;
+    final UserProducer userProducer;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxService outboxService,
+                       UserProducer userProducer) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxService = outboxService;
+        this.userProducer = userProducer;
+    }
+
+    @Value(value = "${broker.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value(value = "${broker.outbox.confirm-timeout-ms:10000}")
+    private long confirmTimeout;
+
+    // Must outlast the confirm wait, or another relay could claim an event that is still in flight.
+    @Value(value = "${broker.outbox.claim-lease-ms:30000}")
+    private long claimLease;
+
+    @Scheduled(fixedDelayString = "${broker.outbox.poll-interval-ms:500}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed >= batchSize);
+    }
+
+    /**
+     * Claims a batch, publishes it and deletes the confirmed events. Unconfirmed events stay in
+     * the outbox and are claimed again once their lease expires; events whose payload cannot be
+     * read are dead-lettered so they do not hold up the rest of the outbox.
+     */
+    int relayBatch() {
+        List<OutboxEventModel> events = new ArrayList<>(outboxEventRepository.claimBatch(batchSize, claimLease));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        // RETURNING gives no order guarantee; publish in creation order so a user's emails stay in sequence.
+        events.sort(Comparator.comparing(OutboxEventModel::getCreatedAt));
+
+        // The event id doubles as the message id, so a re-relayed event is recognised downstream.
+        List<OutboxEventModel> published = new ArrayList<>(events.size());
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(events.size());
+        List<UUID> deadLettered = new ArrayList<>();
+        for (OutboxEventModel event : events) {
+            EmailDto emailDto;
+            try {
+                emailDto = outboxService.readPayload(event);
+            } catch (IllegalStateException e) {
+                log.error("Evento de outbox {} movido para dead letter: {}", event.getEventId(), e.getMessage());
+                deadLettered.add(event.getEventId());
+                continue;
+            }
+            Instant producedAt = event.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant();
+            published.add(event);
+            confirms.add(userProducer.publishMessageEmail(event.getEventId(), emailDto, producedAt));
+        }
+        if (!deadLettered.isEmpty()) {
+            outboxEventRepository.markDeadLettered(deadLettered, LocalDateTime.now());
+        }
+
+        // The whole batch is in flight at once; only confirmed events leave the outbox.
+        List<OutboxEventModel> confirmed = new ArrayList<>(published.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeout);
+        for (int i = 0; i < published.size(); i++) {
+            try {
+                confirms.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                confirmed.add(published.get(i));
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Evento de outbox {} não confirmado, será reenviado: {}", published.get(i).getEventId(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!confirmed.isEmpty()) {
+            outboxEventRepository.deleteAllInBatch(confirmed);
+        }
+
+        log.info("{} de {} evento(s) de outbox confirmados", confirmed.size(), events.size());
+        return confirmed.size();
+    }
+}
@@ -2,36 +2,171 @@ package com.ms.user.producers;
 
 import com.ms.user.dtos.EmailDto;
 import com.ms.user.models.UserModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 @Component
+@Slf4j
 public class UserProducer {
 
+    public static final String WELCOME_TEMPLATE = "welcome";
+    // Epoch millis; the email service derives queue dwell and end-to-end latency from them.
+    public static final String PRODUCED_AT_HEADER = "x-produced-at";
+    public static final String PUBLISHED_AT_HEADER = "x-published-at";
+
     final RabbitTemplate rabbitTemplate;
+    final EmailPartitioner emailPartitioner;
+    final Executor retryExecutor;
+    final Semaphore inFlight;
+    final Timer publishLatency;
+    final Timer confirmLatency;
+    final Counter nacks;
+    final Counter returns;
 
-    public UserProducer(RabbitTemplate rabbitTemplate) {
+    public UserProducer(RabbitTemplate rabbitTemplate,
+                        EmailPartitioner emailPartitioner,
+                        @Qualifier("applicationTaskExecutor") Executor retryExecutor,
+                        MeterRegistry meterRegistry,
+                        @Value("${broker.publisher.max-in-flight:256}") int maxInFlight) {
         this.rabbitTemplate = rabbitTemplate;
+        this.emailPartitioner = emailPartitioner;
+        this.retryExecutor = retryExecutor;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.publishLatency = Timer.builder("user.producer.publish.latency")
+                .description("Tempo para converter e escrever a mensagem no canal")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.confirmLatency = Timer.builder("user.producer.confirm.latency")
+                .description("Tempo entre a publicação e a confirmação do broker")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.nacks = meterRegistry.counter("user.producer.nacks");
+        this.returns = meterRegistry.counter("user.producer.returns");
+        this.rabbitTemplate.setReturnsCallback(returned ->
+                log.warn("Mensagem devolvida pelo broker: {} {}", returned.getReplyCode(), returned.getReplyText()));
     }
 
     @Value(value = "${broker.queue.email.name}")
     private String routingKey;
 
-    public void publishMessageEmail(UserModel userModel) {
+    @Value(value = "${broker.exchange.email.name:}")
+    private String partitionExchange;
+
+    @Value(value = "${broker.publisher.max-retries:3}")
+    private int maxRetries;
+
+    @Value(value = "${broker.publisher.in-flight-timeout-ms:30000}")
+    private long inFlightTimeout;
+
+    public EmailDto buildEmailDto(UserModel userModel) {
         var emailDto = new EmailDto();
 
         emailDto.setUserId(userModel.getUserId());
         emailDto.setEmailTo(userModel.getEmail());
-        emailDto.setSubject("Cadastro realizado com sucesso!");
+        // Copy lives in the email service; only the template and its variables travel on the wire.
+        emailDto.setTemplateId(WELCOME_TEMPLATE);
+        emailDto.setVariables(Map.of("name", userModel.getName()));
+
+        return emailDto;
+    }
+
+    /**
+     * Publishes without waiting for the broker. The returned future completes once the message
+     * is confirmed, after nacks have been retried up to {@code maxRetries} times, and fails if it
+     * is finally nacked or returned as unroutable. At most {@code maxInFlight} messages are
+     * awaiting confirmation at any time; further publishes block until the window has room.
+     * <p>
+     * {@code messageId} is stamped on the AMQP message and is what the email service deduplicates
+     * on, so it must stay the same when the same email is published again. {@code producedAt} is
+     * when the email was requested, which for the outbox is when the event was written.
+     * <p>
+     * With more than one partition the message goes to {@code broker.exchange.email.name} with
+     * the user's partition as routing key, so a user's emails are consumed in order.
+     */
+    public CompletableFuture<Void> publishMessageEmail(UUID messageId, EmailDto emailDto, Instant producedAt) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        publish(messageId.toString(), emailDto, producedAt.toEpochMilli(), result, 0);
+        return result;
+    }
+
+    public CompletableFuture<Void> publishMessageEmail(EmailDto emailDto) {
+        return publishMessageEmail(UUID.randomUUID(), emailDto, Instant.now());
+    }
+
+    private void publish(String messageId, EmailDto emailDto, long producedAt, CompletableFuture<Void> result, int attempt) {
+        try {
+            if (!inFlight.tryAcquire(inFlightTimeout, TimeUnit.MILLISECONDS)) {
+                result.completeExceptionally(new AmqpException("Janela de confirmações cheia por mais de " + inFlightTimeout + " ms"));
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return;
+        }
+
+        boolean partitioned = emailPartitioner.isPartitioned();
+        String exchange = partitioned ? partitionExchange : "";
+        String key = partitioned ? String.valueOf(emailPartitioner.partitionFor(emailDto.getUserId())) : routingKey;
+
+        var correlationData = new CorrelationData(UUID.randomUUID().toString());
+        long start = System.nanoTime();
+        correlationData.getFuture().whenComplete((confirm, error) -> {
+            inFlight.release();
+            confirmLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-        emailDto.setText(userModel.getName()
-                + ", seja bem vindo(a)!"
-                + "\n\nAgradecemos o seu cadastro, " +
-                "aproveite agora todos os recursos da nossa plataforma!");
+            if (correlationData.getReturned() != null) {
+                returns.increment();
+                result.completeExceptionally(new AmqpException("Mensagem sem rota para " + exchange + "/" + key));
+            } else if (error != null && !(error instanceof AmqpException)) {
+                // The message never left, e.g. the converter failed; republishing would fail the same way.
+                result.completeExceptionally(error);
+            } else if (error == null && confirm.isAck()) {
+                result.complete(null);
+            } else {
+                nacks.increment();
+                String reason = error != null ? error.getMessage() : confirm.getReason();
+                if (attempt < maxRetries) {
+                    log.warn("Broker recusou a mensagem do usuário {} ({}), tentativa {}", emailDto.getUserId(), reason, attempt + 1);
+                    // Never republish from the connection thread that delivers confirms.
+                    retryExecutor.execute(() -> publish(messageId, emailDto, producedAt, result, attempt + 1));
+                } else {
+                    result.completeExceptionally(new AmqpException("Mensagem recusada pelo broker: " + reason));
+                }
+            }
+        });
 
-        rabbitTemplate.convertAndSend("", routingKey, emailDto);
-        System.out.println("CHAMOU O PUBLISHMESSAGEEMAIL");
+        try {
+            rabbitTemplate.convertAndSend(exchange, key, emailDto, message -> {
+                MessageProperties properties = message.getMessageProperties();
+                properties.setMessageId(messageId);
+                properties.setHeader(PRODUCED_AT_HEADER, producedAt);
+                properties.setHeader(PUBLISHED_AT_HEADER, System.currentTimeMillis());
+                return message;
+            }, correlationData);
+        } catch (RuntimeException e) {
+            // Completing the future releases the window slot.
+            correlationData.getFuture().completeExceptionally(e);
+        } finally {
+            publishLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.ms.user.repositories;
+
+import com.ms.user.models.OutboxEventModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEventModel, UUID> {
+
+    /**
+     * Leases the oldest claimable events for {@code leaseMs} and commits straight away, so no row
+     * lock is held while the relay waits for broker confirms. SKIP LOCKED lets several relay
+     * instances claim at the same time without blocking each other.
+     */
+    @Query(value = "UPDATE tb_outbox SET claimed_until = now() + make_interval(secs => :leaseMs / 1000.0) "
+            + "WHERE event_id IN (SELECT event_id FROM tb_outbox WHERE dead_lettered_at IS NULL "
+            + "AND (claimed_until IS NULL OR claimed_until < now()) "
+            + "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED) RETURNING *", nativeQuery = true)
+    @Transactional
+    List<OutboxEventModel> claimBatch(@Param("limit") int limit, @Param("leaseMs") long leaseMs);
+
+    @Modifying
+    @Transactional
+    @Query("update OutboxEventModel e set e.deadLetteredAt = :now where e.eventId in :eventIds")
+    int markDeadLettered(@Param("eventIds") Collection<UUID> eventIds, @Param("now") LocalDateTime now);
+}
@@ -1,11 +1,60 @@
 package com.ms.user.repositories;
 
 import com.ms.user.models.UserModel;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface UserRepository extends JpaRepository<UserModel, UUID> {
     Optional<UserModel> findByEmail(String email);
+
+    List<UserModel> findAllByOrderByUserIdAsc(Limit limit);
+
+    List<UserModel> findByUserIdGreaterThanOrderByUserIdAsc(UUID userId, Limit limit);
+
+    @Query("select u.email from UserModel u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Updates name and email and bumps the version in one statement, provided the row exists and,
+     * when {@code expectedVersion} is not null, still has that version. Returns the email the user
+     * had before, which the previous-row lock keeps consistent with the row that was updated.
+     */
+    @Query(value = "UPDATE tb_users u SET name = :name, email = :email, version = u.version + 1 "
+            + "FROM (SELECT user_id, email FROM tb_users WHERE user_id = :userId FOR UPDATE) previous "
+            + "WHERE u.user_id = previous.user_id AND u.version = coalesce(CAST(:expectedVersion AS bigint), u.version) "
+            + "RETURNING previous.email AS \"previousEmail\", u.version AS \"version\"", nativeQuery = true)
+    @Transactional
+    Optional<UserUpdateResult> updateIfVersionMatches(@Param("userId") UUID userId,
+                                                      @Param("name") String name,
+                                                      @Param("email") String email,
+                                                      @Param("expectedVersion") Long expectedVersion);
+
+    /** Deletes the user under the same version condition and returns the deleted email, if any row matched. */
+    @Query(value = "DELETE FROM tb_users WHERE user_id = :userId "
+            + "AND version = coalesce(CAST(:expectedVersion AS bigint), version) RETURNING email", nativeQuery = true)
+    @Transactional
+    Optional<String> deleteIfVersionMatches(@Param("userId") UUID userId, @Param("expectedVersion") Long expectedVersion);
+
+    interface UserUpdateResult {
+        String getPreviousEmail();
+
+        long getVersion();
+    }
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.email from UserModel u")
+    Stream<String> streamAllEmails();
 }
@@ -0,0 +1,165 @@
+package com.ms.user.services;
+
+import com.ms.user.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Counting Bloom filter of registered emails. A negative answer is definitive for what this
+ * instance has seen, so {@link UserService#save} can skip the lookup; a positive answer still
+ * has to be confirmed against the database. Counters are 4 bits wide, packed 16 per long and
+ * updated with CAS so deletes can be applied as well; saturated counters are never decremented.
+ */
+@Component
+@Slf4j
+public class EmailBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long COUNTER_MASK = 0xFL;
+
+    final UserRepository userRepository;
+    final TransactionTemplate transactionTemplate;
+
+    private final AtomicLongArray counters;
+    private final long size;
+    private final int hashFunctions;
+    private final AtomicLong entries = new AtomicLong();
+    private volatile boolean ready;
+
+    public EmailBloomFilter(UserRepository userRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${users.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${users.email-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+
+        long optimalSize = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.size = Math.max(COUNTERS_PER_WORD, optimalSize);
+        this.hashFunctions = Math.max(1, (int) Math.round((double) size / expectedInsertions * Math.log(2)));
+        this.counters = new AtomicLongArray(Math.toIntExact((size + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> emails = userRepository.streamAllEmails()) {
+                emails.forEach(this::add);
+            }
+        });
+        ready = true;
+        log.info("Filtro de emails carregado com {} email(s) em {} ms", entries.get(), System.currentTimeMillis() - start);
+    }
+
+    public boolean mightContain(String email) {
+        if (!ready) {
+            return true;
+        }
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            if (counter(index(h1, h2, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void add(String email) {
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            update(index(h1, h2, i), 1);
+        }
+        entries.incrementAndGet();
+    }
+
+    public void remove(String email) {
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            update(index(h1, h2, i), -1);
+        }
+        entries.decrementAndGet();
+    }
+
+    /**
+     * Removing before commit could let a concurrent signup skip the lookup for an email
+     * that is still stored if the transaction rolls back, so removal waits for the commit.
+     */
+    public void removeAfterCommit(String email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remove(email);
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private long index(int h1, int h2, int i) {
+        int combined = h1 + i * h2;
+        return Integer.toUnsignedLong(combined) % size;
+    }
+
+    private int counter(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = (int) (index % COUNTERS_PER_WORD) * 4;
+        return (int) ((counters.get(word) >>> shift) & COUNTER_MASK);
+    }
+
+    private void update(long index, int delta) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = (int) (index % COUNTERS_PER_WORD) * 4;
+        while (true) {
+            long current = counters.get(word);
+            long value = (current >>> shift) & COUNTER_MASK;
+            if (value == COUNTER_MASK || (delta < 0 && value == 0)) {
+                return;
+            }
+            long updated = (current & ~(COUNTER_MASK << shift)) | ((value + delta) << shift);
+            if (counters.compareAndSet(word, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static long hash(String email) {
+        String normalized = email.trim().toLowerCase(Locale.ROOT);
+        // FNV-1a followed by the MurmurHash3 finalizer for a well mixed 64-bit value.
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < normalized.length(); i++) {
+            hash ^= normalized.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ms.user.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.user.dtos.EmailDto;
+import com.ms.user.models.OutboxEventModel;
+import com.ms.user.models.UserModel;
+import com.ms.user.producers.UserProducer;
+import com.ms.user.repositories.OutboxEventRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class OutboxService {
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO tb_outbox (event_id, aggregate_id, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    final OutboxEventRepository outboxEventRepository;
+    final UserProducer userProducer;
+    final ObjectMapper objectMapper;
+    final JdbcTemplate jdbcTemplate;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, UserProducer userProducer,
+                         ObjectMapper objectMapper, JdbcTemplate jdbcTemplate) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.userProducer = userProducer;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Must be called inside the transaction that persists the user, so the event
+     * is only visible to the relay once the user row is committed.
+     */
+    public OutboxEventModel enqueueWelcomeEmail(UserModel userModel) {
+        return outboxEventRepository.save(newWelcomeEmailEvent(userModel));
+    }
+
+    /**
+     * Bulk variant used by the import path: one JDBC batch instead of one persist per user.
+     */
+    public void enqueueWelcomeEmails(List<UserModel> userModels) {
+        List<OutboxEventModel> events = new ArrayList<>(userModels.size());
+        for (UserModel userModel : userModels) {
+            OutboxEventModel event = newWelcomeEmailEvent(userModel);
+            event.setEventId(UUID.randomUUID());
+            event.prePersist();
+            events.add(event);
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, events, events.size(), (ps, event) -> {
+            ps.setObject(1, event.getEventId());
+            ps.setObject(2, event.getAggregateId());
+            ps.setString(3, event.getPayload());
+            ps.setObject(4, event.getCreatedAt());
+        });
+    }
+
+    public EmailDto readPayload(OutboxEventModel event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), EmailDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Evento de outbox " + event.getEventId() + " com payload inválido", e);
+        }
+    }
+
+    private OutboxEventModel newWelcomeEmailEvent(UserModel userModel) {
+        EmailDto emailDto = userProducer.buildEmailDto(userModel);
+
+        var event = new OutboxEventModel();
+        event.setAggregateId(userModel.getUserId());
+        event.setPayload(writePayload(emailDto));
+        return event;
+    }
+
+    private String writePayload(EmailDto emailDto) {
+        try {
+            return objectMapper.writeValueAsString(emailDto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar o email do usuário " + emailDto.getUserId(), e);
+        }
+    }
+}
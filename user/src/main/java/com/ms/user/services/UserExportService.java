@@ -0,0 +1,61 @@
+package com.ms.user.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@Service
+public class UserExportService {
+
+    private static final String SELECT_USERS = "SELECT user_id, name, email FROM tb_users";
+
+    final JdbcTemplate jdbcTemplate;
+    final ObjectMapper objectMapper;
+
+    // A JdbcTemplate of its own, so the fetch size does not leak into the shared one.
+    public UserExportService(DataSource dataSource,
+                             ObjectMapper objectMapper,
+                             @Value("${users.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every user as one JSON object per line and returns how many were written. The
+     * PostgreSQL driver only streams through a server-side cursor inside a transaction, so
+     * the read-only transaction keeps at most {@code fetchSize} rows in memory at a time.
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream outputStream) throws IOException {
+        long[] exported = {0};
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            jdbcTemplate.query(SELECT_USERS, rs -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeStringField("userId", rs.getString("user_id"));
+                    generator.writeStringField("name", rs.getString("name"));
+                    generator.writeStringField("email", rs.getString("email"));
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    exported[0]++;
+                } catch (IOException e) {
+                    // Usually the client went away; abandoning the query closes the cursor.
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return exported[0];
+    }
+}
@@ -0,0 +1,180 @@
+package com.ms.user.services;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.user.dtos.UserImportResultDto;
+import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.enums.ImportStatus;
+import com.ms.user.models.UserModel;
+import com.ms.user.repositories.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.util.*;
+
+@Service
+@Slf4j
+public class UserImportService {
+
+    // One statement per chunk. Conflicts from concurrent signups or other instances are reported per row
+    // instead of failing the batch: a row missing from RETURNING was not inserted, whatever the driver
+    // reports as update counts.
+    private static final String INSERT_USERS =
+            "INSERT INTO tb_users (user_id, name, email, version) "
+                    + "SELECT user_id, name, email, 0 FROM unnest(?::uuid[], ?::varchar[], ?::varchar[]) AS u (user_id, name, email) "
+                    + "ON CONFLICT (email) DO NOTHING RETURNING user_id";
+
+    final UserRepository userRepository;
+    final OutboxService outboxService;
+    final EmailBloomFilter emailBloomFilter;
+    final JdbcTemplate jdbcTemplate;
+    final ObjectMapper objectMapper;
+    final Validator validator;
+    final TransactionTemplate transactionTemplate;
+
+    public UserImportService(UserRepository userRepository,
+                             OutboxService outboxService,
+                             EmailBloomFilter emailBloomFilter,
+                             JdbcTemplate jdbcTemplate,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.emailBloomFilter = emailBloomFilter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Value(value = "${users.import.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Reads either a JSON array or newline-delimited JSON objects and imports them in chunks of
+     * {@code batchSize}, each chunk in its own transaction. Results keep the input order.
+     */
+    public List<UserImportResultDto> importUsers(InputStream inputStream) {
+        List<UserImportResultDto> results = new ArrayList<>();
+        List<UserRecordDto> chunk = new ArrayList<>(batchSize);
+        int index = 0;
+
+        try (MappingIterator<UserRecordDto> iterator = objectMapper.readerFor(UserRecordDto.class).readValues(inputStream)) {
+            while (iterator.hasNextValue()) {
+                chunk.add(iterator.nextValue());
+                index++;
+                if (chunk.size() == batchSize) {
+                    results.addAll(importChunk(index - chunk.size(), chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            // Whatever was already parsed is still imported; the offending entry is reported as invalid.
+            results.addAll(importChunk(index - chunk.size(), chunk));
+            chunk.clear();
+            results.add(new UserImportResultDto(index, null, ImportStatus.INVALID, null, "JSON malformado: " + e.getMessage()));
+        }
+
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(index - chunk.size(), chunk));
+        }
+
+        log.info("Importação finalizada: {} registro(s) processado(s)", results.size());
+        return results;
+    }
+
+    List<UserImportResultDto> importChunk(int firstIndex, List<UserRecordDto> records) {
+        if (records.isEmpty()) {
+            return List.of();
+        }
+        return transactionTemplate.execute(status -> doImportChunk(firstIndex, records));
+    }
+
+    private List<UserImportResultDto> doImportChunk(int firstIndex, List<UserRecordDto> records) {
+        UserImportResultDto[] results = new UserImportResultDto[records.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+
+        for (int i = 0; i < records.size(); i++) {
+            UserRecordDto record = records.get(i);
+            if (record == null) {
+                results[i] = result(firstIndex + i, null, ImportStatus.INVALID, null, "Registro vazio.");
+                continue;
+            }
+            Set<ConstraintViolation<UserRecordDto>> violations = validator.validate(record);
+            if (!violations.isEmpty()) {
+                results[i] = result(firstIndex + i, record, ImportStatus.INVALID, null, describe(violations));
+            } else if (candidates.putIfAbsent(record.email(), i) != null) {
+                results[i] = result(firstIndex + i, record, ImportStatus.DUPLICATE, null, "Email repetido no lote.");
+            }
+        }
+
+        // Only addresses the filter cannot rule out need the bulk existence check.
+        List<String> maybeExisting = candidates.keySet().stream()
+                .filter(emailBloomFilter::mightContain)
+                .toList();
+        if (!maybeExisting.isEmpty()) {
+            for (String email : userRepository.findExistingEmails(maybeExisting)) {
+                int i = candidates.remove(email);
+                results[i] = result(firstIndex + i, records.get(i), ImportStatus.DUPLICATE, null, "O Email informado já está cadastrado.");
+            }
+        }
+
+        List<UserModel> users = new ArrayList<>(candidates.size());
+        for (int i : candidates.values()) {
+            UserRecordDto record = records.get(i);
+            users.add(new UserModel(UUID.randomUUID(), record.name(), record.email()));
+        }
+
+        Set<UUID> inserted = users.isEmpty() ? Set.of() : new HashSet<>(insertUsers(users));
+
+        List<UserModel> created = new ArrayList<>(users.size());
+        for (UserModel user : users) {
+            int i = candidates.get(user.getEmail());
+            if (inserted.contains(user.getUserId())) {
+                results[i] = result(firstIndex + i, records.get(i), ImportStatus.CREATED, user.getUserId(), null);
+                created.add(user);
+            } else {
+                results[i] = result(firstIndex + i, records.get(i), ImportStatus.DUPLICATE, null, "O Email informado já está cadastrado.");
+            }
+        }
+
+        if (!created.isEmpty()) {
+            outboxService.enqueueWelcomeEmails(created);
+            created.forEach(user -> emailBloomFilter.add(user.getEmail()));
+        }
+        return Arrays.asList(results);
+    }
+
+    // Returns the ids of the rows actually inserted.
+    private List<UUID> insertUsers(List<UserModel> users) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_USERS);
+            ps.setArray(1, connection.createArrayOf("uuid", users.stream().map(UserModel::getUserId).toArray()));
+            ps.setArray(2, connection.createArrayOf("varchar", users.stream().map(UserModel::getName).toArray()));
+            ps.setArray(3, connection.createArrayOf("varchar", users.stream().map(UserModel::getEmail).toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getObject(1, UUID.class));
+    }
+
+    private static UserImportResultDto result(int index, UserRecordDto record, ImportStatus status, UUID userId, String message) {
+        return new UserImportResultDto(index, record == null ? null : record.email(), status, userId, message);
+    }
+
+    private static String describe(Set<ConstraintViolation<UserRecordDto>> violations) {
+        StringJoiner joiner = new StringJoiner("; ");
+        for (ConstraintViolation<UserRecordDto> violation : violations) {
+            joiner.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        return joiner.toString();
+    }
+}
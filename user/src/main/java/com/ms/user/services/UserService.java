@@ -1,65 +1,143 @@
 package com.ms.user.services;
 
+import com.ms.user.configurations.CacheConfig;
+import com.ms.user.dtos.UserPageDto;
 import com.ms.user.exceptions.EmailAlreadyExistsException;
+import com.ms.user.exceptions.InvalidCursorException;
 import com.ms.user.exceptions.UserNotFoundException;
+import com.ms.user.exceptions.VersionConflictException;
 import com.ms.user.models.UserModel;
-import com.ms.user.producers.UserProducer;
 import com.ms.user.repositories.UserRepository;
+import com.ms.user.repositories.UserRepository.UserUpdateResult;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.util.Base64;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.UUID;
 
 @Service
 public class UserService {
 
     final UserRepository userRepository;
-    final UserProducer userProducer;
+    final OutboxService outboxService;
+    final EmailBloomFilter emailBloomFilter;
 
-    public UserService(UserRepository userRepository, UserProducer userProducer) {
+    public UserService(UserRepository userRepository, OutboxService outboxService, EmailBloomFilter emailBloomFilter) {
         this.userRepository = userRepository;
-        this.userProducer = userProducer;
+        this.outboxService = outboxService;
+        this.emailBloomFilter = emailBloomFilter;
     }
 
+    @Value(value = "${users.page.max-size:100}")
+    private int maxPageSize;
+
     @Transactional
     public UserModel save(UserModel userModel) {
-        Optional<UserModel> existingUser = userRepository.findByEmail(userModel.getEmail());
-        if (existingUser.isPresent()) {
-            throw new EmailAlreadyExistsException(userModel.getEmail());
+        String email = userModel.getEmail();
+        if (emailBloomFilter.mightContain(email) && userRepository.findByEmail(email).isPresent()) {
+            throw new EmailAlreadyExistsException(email);
         }
 
-        userModel = userRepository.save(userModel);
-        userProducer.publishMessageEmail(userModel);
+        try {
+            // Flushing here surfaces the unique constraint, which covers filter false negatives and races.
+            userModel = userRepository.saveAndFlush(userModel);
+        } catch (DataIntegrityViolationException e) {
+            throw new EmailAlreadyExistsException(email);
+        }
+        emailBloomFilter.add(email);
+        outboxService.enqueueWelcomeEmail(userModel);
         return userModel;
     }
 
-    public List<UserModel> getAllUsers() {
-        return userRepository.findAll();
+    public UserPageDto getUsers(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        // One extra row tells whether there is a next page without a COUNT query.
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<UserModel> users = (cursor == null || cursor.isBlank())
+                ? userRepository.findAllByOrderByUserIdAsc(limit)
+                : userRepository.findByUserIdGreaterThanOrderByUserIdAsc(decodeCursor(cursor), limit);
+
+        if (users.size() <= pageSize) {
+            return new UserPageDto(users, null);
+        }
+        List<UserModel> page = users.subList(0, pageSize);
+        return new UserPageDto(page, encodeCursor(page.get(pageSize - 1).getUserId()));
     }
 
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#userId", sync = true)
     public UserModel getUserById(UUID userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException(userId));
     }
 
+    /**
+     * Deletes the user in a single statement. {@code expectedVersion} is optional; when given, the
+     * user is only deleted if nobody changed it since that version was read.
+     */
     @Transactional
-    public void deleteById(UUID userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new UserNotFoundException(userId);
-        }
-        userRepository.deleteById(userId);
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#userId")
+    public void deleteById(UUID userId, Long expectedVersion) {
+        String email = userRepository.deleteIfVersionMatches(userId, expectedVersion)
+                .orElseThrow(() -> notUpdated(userId));
+
+        emailBloomFilter.removeAfterCommit(email);
     }
 
+    /**
+     * Updates the user in a single statement, under the same optional version check as
+     * {@link #deleteById(UUID, Long)}. An email taken by another user is rejected by the unique constraint.
+     */
     @Transactional
-    public UserModel updateUser(UUID userId, UserModel userDetails) {
-        UserModel existingUser = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException(userId));
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#userId")
+    public UserModel updateUser(UUID userId, UserModel userDetails, Long expectedVersion) {
+        String email = userDetails.getEmail();
+        UserUpdateResult result;
+        try {
+            result = userRepository.updateIfVersionMatches(userId, userDetails.getName(), email, expectedVersion)
+                    .orElseThrow(() -> notUpdated(userId));
+        } catch (DataIntegrityViolationException e) {
+            throw new EmailAlreadyExistsException(email);
+        }
 
-        existingUser.setName(userDetails.getName());
-        existingUser.setEmail(userDetails.getEmail());
+        if (!Objects.equals(result.getPreviousEmail(), email)) {
+            emailBloomFilter.add(email);
+            emailBloomFilter.removeAfterCommit(result.getPreviousEmail());
+        }
+        return new UserModel(userId, userDetails.getName(), email, result.getVersion());
+    }
+
+    // Only reached when no row matched, so the extra lookup is off the common path.
+    private RuntimeException notUpdated(UUID userId) {
+        return userRepository.existsById(userId) ? new VersionConflictException(userId) : new UserNotFoundException(userId);
+    }
 
-        return userRepository.save(existingUser);
+    private static String encodeCursor(UUID userId) {
+        ByteBuffer buffer = ByteBuffer.allocate(16)
+                .putLong(userId.getMostSignificantBits())
+                .putLong(userId.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    private static UUID decodeCursor(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+        if (bytes.length != 16) {
+            throw new InvalidCursorException(cursor);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
     }
 }
@@ -0,0 +1,69 @@
+package com.ms.user.configurations;
+
+import com.ms.user.models.UserModel;
+import com.ms.user.repositories.UserRepository;
+import com.ms.user.services.EmailBloomFilter;
+import com.ms.user.services.OutboxService;
+import com.ms.user.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.*;
+
+@ContextConfiguration(classes = {CacheConfig.class, UserService.class})
+@ExtendWith(SpringExtension.class)
+class CacheConfigTest {
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    @MockBean
+    private EmailBloomFilter emailBloomFilter;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void getUserById_SecondLookupServedFromCache() {
+        UUID userId = UUID.randomUUID();
+        UserModel user = new UserModel(userId, "Test User", "test@example.com");
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+
+        assertEquals(user, userService.getUserById(userId));
+        assertEquals(user, userService.getUserById(userId));
+
+        verify(userRepository, times(1)).findById(userId);
+        assertNotNull(cacheManager.getCache(CacheConfig.USERS_CACHE).get(userId));
+    }
+
+    @Test
+    void deleteById_EvictsCachedUser() {
+        UUID userId = UUID.randomUUID();
+        UserModel user = new UserModel(userId, "Test User", "test@example.com");
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRepository.deleteIfVersionMatches(userId, null)).thenReturn(Optional.of("test@example.com"));
+
+        userService.getUserById(userId);
+        userService.deleteById(userId, null);
+        userService.getUserById(userId);
+
+        // deleteById does not read the user, so the second lookup proves the entry was evicted.
+        verify(userRepository, times(2)).findById(userId);
+    }
+}
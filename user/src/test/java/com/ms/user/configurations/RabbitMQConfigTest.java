@@ -1,15 +1,22 @@
 package com.ms.user.configurations;
 
+import com.ms.user.dtos.EmailDto;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.DefaultJackson2JavaTypeMapper;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -30,4 +37,18 @@ class RabbitMQConfigTest {
                 "JavaTypeMapper deve ser uma instância de DefaultJackson2JavaTypeMapper");
         logger.info("Teste de conversor de mensagem realizado com sucesso.");
     }
+
+    @Test
+    void testRabbitMessageConverterDecodesJsonAndBinary() {
+        ContentTypeDelegatingMessageConverter converter = rabbitMQConfig.rabbitMessageConverter(
+                rabbitMQConfig.messageConverter(), rabbitMQConfig.binaryMessageConverter());
+        EmailDto emailDto = new EmailDto(UUID.randomUUID(), "test@example.com", "Assunto", "Texto");
+
+        Message json = rabbitMQConfig.messageConverter().toMessage(emailDto, new MessageProperties());
+        Message binary = rabbitMQConfig.binaryMessageConverter().toMessage(emailDto, new MessageProperties());
+
+        assertEquals(emailDto, converter.fromMessage(binary));
+        assertTrue(converter.fromMessage(json) instanceof EmailDto, "Mensagens JSON devem continuar sendo decodificadas");
+        logger.info("Teste de negociação de conteúdo realizado com sucesso.");
+    }
 }
@@ -1,18 +1,27 @@
 package com.ms.user.controllers;
 
+import com.ms.user.dtos.UserPageDto;
 import com.ms.user.dtos.UserRecordDto;
 import com.ms.user.exceptions.EmailAlreadyExistsException;
 import com.ms.user.exceptions.UserNotFoundException;
+import com.ms.user.exceptions.VersionConflictException;
+import com.ms.user.mappers.UserMapper;
 import com.ms.user.models.UserModel;
+import com.ms.user.services.UserExportService;
 import com.ms.user.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -25,6 +34,12 @@ class UserControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private UserExportService userExportService;
+
+    @Spy
+    private UserMapper userMapper;
+
     @InjectMocks
     private UserController userController;
 
@@ -53,15 +68,16 @@ class UserControllerTest {
         userList.add(new UserModel(UUID.randomUUID(), "User1", "user1@example.com"));
         userList.add(new UserModel(UUID.randomUUID(), "User2", "user2@example.com"));
 
-        when(userService.getAllUsers()).thenReturn(userList);
+        when(userService.getUsers(null, 20)).thenReturn(new UserPageDto(userList, "cursor"));
 
-        ResponseEntity<List<UserModel>> response = userController.getAllUsers();
+        ResponseEntity<UserPageDto> response = userController.getAllUsers(null, 20);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(userList.size(), response.getBody().size());
-        assertEquals(userList.get(0), response.getBody().get(0));
-        assertEquals(userList.get(1), response.getBody().get(1));
-        verify(userService, times(1)).getAllUsers();
+        assertEquals(userList.size(), response.getBody().users().size());
+        assertEquals(userList.get(0), response.getBody().users().get(0));
+        assertEquals(userList.get(1), response.getBody().users().get(1));
+        assertEquals("cursor", response.getBody().nextCursor());
+        verify(userService, times(1)).getUsers(null, 20);
     }
 
     @Test
@@ -70,12 +86,36 @@ class UserControllerTest {
         UserRecordDto userRecordDto = new UserRecordDto("Updated User", "updated@example.com");
 
         ResponseEntity<String> expectedResponse = ResponseEntity.ok("Usuário com ID " + userId + " foi atualizado com sucesso!");
+        when(userService.updateUser(eq(userId), any(UserModel.class), isNull()))
+                .thenReturn(new UserModel(userId, "Updated User", "updated@example.com", 1));
 
-        ResponseEntity<String> response = userController.updateUser(userId, userRecordDto);
+        ResponseEntity<String> response = userController.updateUser(userId, userRecordDto, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedResponse.getBody(), response.getBody());
-        verify(userService, times(1)).updateUser(eq(userId), any(UserModel.class));
+        assertEquals("\"1\"", response.getHeaders().getETag());
+        verify(userService, times(1)).updateUser(eq(userId), any(UserModel.class), isNull());
+    }
+
+    @Test
+    void updateUser_IfMatch_PassesExpectedVersion() {
+        UUID userId = UUID.randomUUID();
+        UserRecordDto userRecordDto = new UserRecordDto("Updated User", "updated@example.com");
+        when(userService.updateUser(eq(userId), any(UserModel.class), eq(3L)))
+                .thenReturn(new UserModel(userId, "Updated User", "updated@example.com", 4));
+
+        ResponseEntity<String> response = userController.updateUser(userId, userRecordDto, "W/\"3\"");
+
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        verify(userService, times(1)).updateUser(eq(userId), any(UserModel.class), eq(3L));
+    }
+
+    @Test
+    void deleteUser_IfMatch_UnknownTag_VersionConflict() {
+        UUID userId = UUID.randomUUID();
+
+        assertThrows(VersionConflictException.class, () -> userController.deleteUser(userId, "\"abc\""));
+        verify(userService, never()).deleteById(any(), any());
     }
 
     @Test
@@ -97,11 +137,11 @@ class UserControllerTest {
         UUID userId = UUID.randomUUID();
         ResponseEntity<String> expectedResponse = ResponseEntity.ok("Usuário com ID " + userId + " foi removido com sucesso.");
 
-        ResponseEntity<String> response = userController.deleteUser(userId);
+        ResponseEntity<String> response = userController.deleteUser(userId, "*");
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedResponse.getBody(), response.getBody());
-        verify(userService, times(1)).deleteById(userId);
+        verify(userService, times(1)).deleteById(userId, null);
     }
 
     @Test
@@ -122,13 +162,13 @@ class UserControllerTest {
     void deleteUser_UserNotFoundException() {
         UUID userId = UUID.randomUUID();
 
-        doThrow(new UserNotFoundException(userId)).when(userService).deleteById(userId);
+        doThrow(new UserNotFoundException(userId)).when(userService).deleteById(userId, null);
 
-        ResponseEntity<String> response = userController.deleteUser(userId);
+        ResponseEntity<String> response = userController.deleteUser(userId, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(response.getBody().contains("Usuário não encontrado com ID: " + userId));
-        verify(userService, times(1)).deleteById(userId);
+        verify(userService, times(1)).deleteById(userId, null);
     }
 
     @Test
@@ -136,13 +176,13 @@ class UserControllerTest {
         UUID userId = UUID.randomUUID();
         UserRecordDto userRecordDto = new UserRecordDto("Updated User", "updated@example.com");
 
-        when(userService.updateUser(eq(userId), any(UserModel.class))).thenThrow(new UserNotFoundException(userId));
+        when(userService.updateUser(eq(userId), any(UserModel.class), isNull())).thenThrow(new UserNotFoundException(userId));
 
-        ResponseEntity<String> response = userController.updateUser(userId, userRecordDto);
+        ResponseEntity<String> response = userController.updateUser(userId, userRecordDto, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(response.getBody().contains("Usuário não encontrado com ID: " + userId));
-        verify(userService, times(1)).updateUser(eq(userId), any(UserModel.class));
+        verify(userService, times(1)).updateUser(eq(userId), any(UserModel.class), isNull());
     }
 
     @Test
@@ -159,4 +199,18 @@ class UserControllerTest {
 
         verify(userService, times(1)).getUserById(userId);
     }
+
+    @Test
+    void exportUsers_StreamsToResponse() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(userExportService.exportUsers(any(OutputStream.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write("{\"name\":\"User1\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        userController.exportUsers(response);
+
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, response.getContentType());
+        assertEquals("{\"name\":\"User1\"}\n", response.getContentAsString());
+    }
 }
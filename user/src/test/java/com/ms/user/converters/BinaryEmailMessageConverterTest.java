@@ -0,0 +1,66 @@
+package com.ms.user.converters;
+
+import com.ms.user.dtos.EmailDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryEmailMessageConverterTest {
+
+    private final BinaryEmailMessageConverter converter = new BinaryEmailMessageConverter();
+
+    @Test
+    void toMessage_RoundTrip() {
+        EmailDto emailDto = new EmailDto(UUID.randomUUID(), "usuário@example.com", "Cadastro realizado com sucesso!", "Olá,\nseja bem vindo(a)!");
+
+        Message message = converter.toMessage(emailDto, new MessageProperties());
+
+        assertEquals(BinaryEmailMessageConverter.CONTENT_TYPE, message.getMessageProperties().getContentType());
+        assertEquals(BinaryEmailMessageConverter.SCHEMA_VERSION, message.getBody()[0]);
+        assertEquals(emailDto, converter.fromMessage(message));
+    }
+
+    @Test
+    void toMessage_TemplateRoundTrip() {
+        EmailDto emailDto = new EmailDto(UUID.randomUUID(), "a@example.com", null, null);
+        emailDto.setTemplateId("welcome");
+        emailDto.setVariables(Map.of("name", "Giselle"));
+
+        Message message = converter.toMessage(emailDto, new MessageProperties());
+
+        assertEquals(emailDto, converter.fromMessage(message));
+    }
+
+    @Test
+    void encode_NullFields() {
+        EmailDto emailDto = new EmailDto(null, "test@example.com", null, null);
+
+        byte[] body = BinaryEmailMessageConverter.encode(emailDto);
+
+        assertEquals(2 + 4 + "test@example.com".length() + 4 + 4 + 4 + 4, body.length);
+        assertEquals(emailDto, BinaryEmailMessageConverter.decode(body));
+    }
+
+    @Test
+    void decode_UnknownVersion_ExceptionThrown() {
+        byte[] body = BinaryEmailMessageConverter.encode(new EmailDto(UUID.randomUUID(), "a@example.com", "s", "t"));
+        body[0] = 99;
+
+        assertThrows(MessageConversionException.class, () -> BinaryEmailMessageConverter.decode(body));
+    }
+
+    @Test
+    void decode_TruncatedBody_ExceptionThrown() {
+        byte[] body = BinaryEmailMessageConverter.encode(new EmailDto(UUID.randomUUID(), "a@example.com", "s", "t"));
+
+        assertThrows(MessageConversionException.class,
+                () -> BinaryEmailMessageConverter.decode(Arrays.copyOf(body, body.length - 3)));
+    }
+}
@@ -0,0 +1,27 @@
+package com.ms.user.mappers;
+
+import com.ms.user.dtos.UserRecordDto;
+import com.ms.user.models.UserModel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserMapperTest {
+
+    private final UserMapper userMapper = new UserMapper();
+
+    @Test
+    void toModel_MapsEveryField() {
+        UserModel userModel = userMapper.toModel(new UserRecordDto("Test User", "test@example.com"));
+
+        assertNull(userModel.getUserId());
+        assertEquals("Test User", userModel.getName());
+        assertEquals("test@example.com", userModel.getEmail());
+    }
+
+    @Test
+    void toModel_CoversEveryRecordComponent() {
+        // Fails when a component is added to UserRecordDto without being mapped here.
+        assertEquals(2, UserRecordDto.class.getRecordComponents().length);
+    }
+}
@@ -0,0 +1,44 @@
+package com.ms.user.producers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailPartitionerTest {
+
+    @Test
+    void partitionFor_IsStableAndInRange() {
+        var partitioner = new EmailPartitioner(8);
+        UUID userId = UUID.randomUUID();
+
+        int partition = partitioner.partitionFor(userId);
+
+        assertTrue(partition >= 0 && partition < 8);
+        assertEquals(partition, partitioner.partitionFor(userId));
+        assertEquals(0, partitioner.partitionFor(null));
+    }
+
+    @Test
+    void jumpConsistentHash_AddingPartitionOnlyMovesKeysToTheNewOne() {
+        int moved = 0;
+        for (long key = 0; key < 10_000; key++) {
+            int before = EmailPartitioner.jumpConsistentHash(key, 10);
+            int after = EmailPartitioner.jumpConsistentHash(key, 11);
+            if (before != after) {
+                assertEquals(10, after);
+                moved++;
+            }
+        }
+        // About 1/11 of the keys should move.
+        assertTrue(moved > 600 && moved < 1200, "movidas: " + moved);
+    }
+
+    @Test
+    void isPartitioned_OnlyWithMoreThanOnePartition() {
+        assertFalse(new EmailPartitioner(1).isPartitioned());
+        assertTrue(new EmailPartitioner(2).isPartitioned());
+        assertThrows(IllegalArgumentException.class, () -> new EmailPartitioner(0));
+    }
+}
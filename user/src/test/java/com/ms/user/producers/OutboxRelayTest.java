@@ -0,0 +1,124 @@
+package com.ms.user.producers;
+
+import com.ms.user.dtos.EmailDto;
+import com.ms.user.models.OutboxEventModel;
+import com.ms.user.repositories.OutboxEventRepository;
+import com.ms.user.services.OutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.AmqpException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private UserProducer userProducer;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        outboxRelay = new OutboxRelay(outboxEventRepository, outboxService, userProducer);
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 2);
+        ReflectionTestUtils.setField(outboxRelay, "confirmTimeout", 1000L);
+        ReflectionTestUtils.setField(outboxRelay, "claimLease", 5000L);
+        when(userProducer.publishMessageEmail(any(UUID.class), any(), any(Instant.class)))
+                .thenAnswer(invocation -> CompletableFuture.<Void>completedFuture(null));
+    }
+
+    @Test
+    void relayBatch_PublishesAndDeletesClaimedEvents() {
+        OutboxEventModel first = new OutboxEventModel(UUID.randomUUID(), UUID.randomUUID(), "{}", LocalDateTime.now());
+        OutboxEventModel second = new OutboxEventModel(UUID.randomUUID(), UUID.randomUUID(), "{}", LocalDateTime.now());
+        EmailDto firstEmail = new EmailDto(first.getAggregateId(), "a@example.com", "s", "t");
+        EmailDto secondEmail = new EmailDto(second.getAggregateId(), "b@example.com", "s", "t");
+
+        when(outboxEventRepository.claimBatch(2, 5000L)).thenReturn(List.of(first, second));
+        when(outboxService.readPayload(first)).thenReturn(firstEmail);
+        when(outboxService.readPayload(second)).thenReturn(secondEmail);
+
+        int relayed = outboxRelay.relayBatch();
+
+        assertEquals(2, relayed);
+        verify(userProducer, times(1)).publishMessageEmail(eq(first.getEventId()), eq(firstEmail), any(Instant.class));
+        verify(userProducer, times(1)).publishMessageEmail(eq(second.getEventId()), eq(secondEmail), any(Instant.class));
+        verify(outboxEventRepository, times(1)).deleteAllInBatch(List.of(first, second));
+    }
+
+    @Test
+    void relayBatch_UnconfirmedEventsStayInOutbox() {
+        OutboxEventModel first = new OutboxEventModel(UUID.randomUUID(), UUID.randomUUID(), "{}", LocalDateTime.now());
+        OutboxEventModel second = new OutboxEventModel(UUID.randomUUID(), UUID.randomUUID(), "{}", LocalDateTime.now());
+
+        when(outboxEventRepository.claimBatch(2, 5000L)).thenReturn(List.of(first, second));
+        when(userProducer.publishMessageEmail(eq(second.getEventId()), any(), any(Instant.class)))
+                .thenReturn(CompletableFuture.failedFuture(new AmqpException("nack")));
+
+        int relayed = outboxRelay.relayBatch();
+
+        assertEquals(1, relayed);
+        verify(outboxEventRepository, times(1)).deleteAllInBatch(List.of(first));
+    }
+
+    @Test
+    void relayBatch_UnreadablePayload_DeadLetteredAndRestPublished() {
+        OutboxEventModel poison = new OutboxEventModel(UUID.randomUUID(), UUID.randomUUID(), "{", LocalDateTime.now().minusSeconds(1));
+        OutboxEventModel healthy = new OutboxEventModel(UUID.randomUUID(), UUID.randomUUID(), "{}", LocalDateTime.now());
+
+        when(outboxEventRepository.claimBatch(2, 5000L)).thenReturn(List.of(poison, healthy));
+        when(outboxService.readPayload(poison)).thenThrow(new IllegalStateException("payload inválido"));
+
+        int relayed = outboxRelay.relayBatch();
+
+        assertEquals(1, relayed);
+        verify(outboxEventRepository, times(1)).markDeadLettered(eq(List.of(poison.getEventId())), any(LocalDateTime.class));
+        verify(userProducer, never()).publishMessageEmail(eq(poison.getEventId()), any(), any(Instant.class));
+        verify(outboxEventRepository, times(1)).deleteAllInBatch(List.of(healthy));
+    }
+
+    @Test
+    void relayBatch_EmptyOutbox_NothingPublished() {
+        when(outboxEventRepository.claimBatch(2, 5000L)).thenReturn(List.of());
+
+        int relayed = outboxRelay.relayBatch();
+
+        assertEquals(0, relayed);
+        verify(userProducer, never()).publishMessageEmail(any(UUID.class), any(), any(Instant.class));
+        verify(outboxEventRepository, never()).deleteAllInBatch(anyList());
+    }
+
+    @Test
+    void relay_DrainsUntilBatchIsNotFull() {
+        OutboxEventModel event = new OutboxEventModel(UUID.randomUUID(), UUID.randomUUID(), "{}", LocalDateTime.now());
+
+        when(outboxEventRepository.claimBatch(2, 5000L))
+                .thenReturn(List.of(event, event))
+                .thenReturn(List.of(event));
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository, times(2)).claimBatch(2, 5000L);
+        verify(userProducer, times(3)).publishMessageEmail(eq(event.getEventId()), any(), any(Instant.class));
+    }
+}
@@ -0,0 +1,132 @@
+package com.ms.user.producers;
+
+import com.ms.user.dtos.EmailDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserProducerTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserProducer userProducer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        userProducer = new UserProducer(rabbitTemplate, new EmailPartitioner(1), Runnable::run, meterRegistry, 1);
+        ReflectionTestUtils.setField(userProducer, "routingKey", "emails");
+        ReflectionTestUtils.setField(userProducer, "maxRetries", 1);
+        ReflectionTestUtils.setField(userProducer, "inFlightTimeout", 10L);
+    }
+
+    private EmailDto emailDto() {
+        return new EmailDto(UUID.randomUUID(), "test@example.com", "Assunto", "Texto");
+    }
+
+    private CorrelationData lastCorrelation(int publishes) {
+        ArgumentCaptor<CorrelationData> captor = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate, times(publishes)).convertAndSend(eq(""), eq("emails"), any(Object.class), any(MessagePostProcessor.class), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void publishMessageEmail_CompletesOnAck() {
+        CompletableFuture<Void> confirm = userProducer.publishMessageEmail(emailDto());
+        assertFalse(confirm.isDone());
+
+        lastCorrelation(1).getFuture().complete(new CorrelationData.Confirm(true, null));
+
+        assertTrue(confirm.isDone());
+        assertFalse(confirm.isCompletedExceptionally());
+        assertEquals(1, meterRegistry.timer("user.producer.confirm.latency").count());
+    }
+
+    @Test
+    void publishMessageEmail_RetriesNackThenFails() {
+        CompletableFuture<Void> confirm = userProducer.publishMessageEmail(emailDto());
+
+        lastCorrelation(1).getFuture().complete(new CorrelationData.Confirm(false, "nack"));
+        assertFalse(confirm.isDone());
+
+        lastCorrelation(2).getFuture().complete(new CorrelationData.Confirm(false, "nack"));
+        assertTrue(confirm.isCompletedExceptionally());
+        assertEquals(2, meterRegistry.counter("user.producer.nacks").count());
+    }
+
+    @Test
+    void publishMessageEmail_StampsMessageIdAndTimestamps() {
+        UUID messageId = UUID.randomUUID();
+        Instant producedAt = Instant.now().minusSeconds(5);
+        userProducer.publishMessageEmail(messageId, emailDto(), producedAt);
+
+        ArgumentCaptor<MessagePostProcessor> captor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate).convertAndSend(eq(""), eq("emails"), any(Object.class), captor.capture(), any(CorrelationData.class));
+        Message message = captor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+
+        assertEquals(messageId.toString(), message.getMessageProperties().getMessageId());
+        assertEquals(producedAt.toEpochMilli(), (Long) message.getMessageProperties().getHeader(UserProducer.PRODUCED_AT_HEADER));
+        assertNotNull(message.getMessageProperties().getHeader(UserProducer.PUBLISHED_AT_HEADER));
+        assertEquals(1, meterRegistry.timer("user.producer.publish.latency").count());
+    }
+
+    @Test
+    void publishMessageEmail_Partitioned_RoutesByUserThroughExchange() {
+        var partitioner = new EmailPartitioner(4);
+        userProducer = new UserProducer(rabbitTemplate, partitioner, Runnable::run, meterRegistry, 1);
+        ReflectionTestUtils.setField(userProducer, "partitionExchange", "emails.partitions");
+        ReflectionTestUtils.setField(userProducer, "inFlightTimeout", 10L);
+        EmailDto emailDto = emailDto();
+
+        userProducer.publishMessageEmail(emailDto);
+
+        String partition = String.valueOf(partitioner.partitionFor(emailDto.getUserId()));
+        verify(rabbitTemplate).convertAndSend(eq("emails.partitions"), eq(partition), eq(emailDto), any(MessagePostProcessor.class), any(CorrelationData.class));
+    }
+
+    @Test
+    void publishMessageEmail_ConverterFailure_ReleasesWindowWithoutRetry() {
+        doThrow(new IllegalArgumentException("não serializável")).doNothing().when(rabbitTemplate)
+                .convertAndSend(anyString(), anyString(), any(Object.class), any(MessagePostProcessor.class), any(CorrelationData.class));
+
+        CompletableFuture<Void> failed = userProducer.publishMessageEmail(emailDto());
+        CompletableFuture<Void> next = userProducer.publishMessageEmail(emailDto());
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(0, meterRegistry.counter("user.producer.nacks").count());
+        assertFalse(next.isDone());
+        lastCorrelation(2).getFuture().complete(new CorrelationData.Confirm(true, null));
+        assertFalse(next.isCompletedExceptionally());
+    }
+
+    @Test
+    void publishMessageEmail_FullWindowFailsFast() {
+        userProducer.publishMessageEmail(emailDto());
+
+        CompletableFuture<Void> second = userProducer.publishMessageEmail(emailDto());
+
+        assertTrue(second.isCompletedExceptionally());
+        verify(rabbitTemplate, times(1)).convertAndSend(eq(""), eq("emails"), any(Object.class), any(MessagePostProcessor.class), any(CorrelationData.class));
+    }
+}
@@ -0,0 +1,78 @@
+package com.ms.user.services;
+
+import com.ms.user.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class EmailBloomFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailBloomFilter emailBloomFilter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        emailBloomFilter = new EmailBloomFilter(userRepository, transactionManager, 10_000, 0.01);
+    }
+
+    @Test
+    void mightContain_BeforeWarmUp_AlwaysTrue() {
+        assertFalse(emailBloomFilter.isReady());
+        assertTrue(emailBloomFilter.mightContain("unknown@example.com"));
+    }
+
+    @Test
+    void warmUp_LoadsStoredEmails() {
+        when(userRepository.streamAllEmails()).thenReturn(Stream.of("user1@example.com", "user2@example.com"));
+
+        emailBloomFilter.warmUp();
+
+        assertTrue(emailBloomFilter.isReady());
+        assertTrue(emailBloomFilter.mightContain("user1@example.com"));
+        assertTrue(emailBloomFilter.mightContain("USER2@example.com"));
+        assertFalse(emailBloomFilter.mightContain("user3@example.com"));
+    }
+
+    @Test
+    void remove_ClearsEmail() {
+        when(userRepository.streamAllEmails()).thenReturn(Stream.empty());
+        emailBloomFilter.warmUp();
+
+        emailBloomFilter.add("user@example.com");
+        emailBloomFilter.removeAfterCommit("user@example.com");
+
+        assertFalse(emailBloomFilter.mightContain("user@example.com"));
+    }
+
+    @Test
+    void mightContain_FalsePositiveRateWithinBound() {
+        when(userRepository.streamAllEmails()).thenReturn(Stream.empty());
+        emailBloomFilter.warmUp();
+        for (int i = 0; i < 10_000; i++) {
+            emailBloomFilter.add("user" + i + "@example.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (emailBloomFilter.mightContain("other" + i + "@example.org")) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "falsos positivos: " + falsePositives);
+    }
+}
@@ -0,0 +1,156 @@
+package com.ms.user.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.user.dtos.UserImportResultDto;
+import com.ms.user.enums.ImportStatus;
+import com.ms.user.repositories.UserRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        userImportService = new UserImportService(userRepository, outboxService, emailBloomFilter, jdbcTemplate,
+                new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator(), transactionManager);
+        ReflectionTestUtils.setField(userImportService, "batchSize", 500);
+        when(emailBloomFilter.mightContain(anyString())).thenReturn(true);
+        stubInsert(email -> true);
+    }
+
+    // Runs the statement creator against a mock connection and returns the ids of the rows whose email passes the filter.
+    private void stubInsert(Predicate<String> inserted) throws SQLException {
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenAnswer(invocation -> {
+            List<Object[]> columns = new ArrayList<>();
+            Connection connection = mock(Connection.class);
+            when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+            when(connection.createArrayOf(anyString(), any(Object[].class))).thenAnswer(call -> {
+                columns.add(call.getArgument(1));
+                return mock(Array.class);
+            });
+            invocation.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+
+            List<UUID> ids = new ArrayList<>();
+            for (int row = 0; row < columns.get(0).length; row++) {
+                if (inserted.test((String) columns.get(2)[row])) {
+                    ids.add((UUID) columns.get(0)[row]);
+                }
+            }
+            return ids;
+        });
+    }
+
+    private List<UserImportResultDto> importUsers(String body) {
+        return userImportService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void importUsers_JsonArray_ReportsPerItemResults() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("existing@example.com"));
+
+        List<UserImportResultDto> results = importUsers("""
+                [
+                  {"name": "User1", "email": "user1@example.com"},
+                  {"name": "User2", "email": "invalido"},
+                  {"name": "User3", "email": "user1@example.com"},
+                  {"name": "User4", "email": "existing@example.com"}
+                ]
+                """);
+
+        assertEquals(4, results.size());
+        assertEquals(ImportStatus.CREATED, results.get(0).status());
+        assertNotNull(results.get(0).userId());
+        assertEquals(ImportStatus.INVALID, results.get(1).status());
+        assertEquals(ImportStatus.DUPLICATE, results.get(2).status());
+        assertEquals(ImportStatus.DUPLICATE, results.get(3).status());
+        verify(outboxService, times(1)).enqueueWelcomeEmails(argThat(users -> users.size() == 1));
+        verify(emailBloomFilter, times(1)).add("user1@example.com");
+    }
+
+    @Test
+    void importUsers_Ndjson_ConflictOnInsertIsDuplicate() throws SQLException {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        stubInsert(email -> !email.equals("user2@example.com"));
+
+        List<UserImportResultDto> results = importUsers("""
+                {"name": "User1", "email": "user1@example.com"}
+                {"name": "User2", "email": "user2@example.com"}
+                """);
+
+        assertEquals(ImportStatus.CREATED, results.get(0).status());
+        assertEquals(ImportStatus.DUPLICATE, results.get(1).status());
+        assertEquals(1, results.get(1).index());
+    }
+
+    @Test
+    void importUsers_SplitsInputIntoBatches() {
+        ReflectionTestUtils.setField(userImportService, "batchSize", 2);
+        when(emailBloomFilter.mightContain(anyString())).thenReturn(false);
+
+        List<UserImportResultDto> results = importUsers("""
+                {"name": "User1", "email": "user1@example.com"}
+                {"name": "User2", "email": "user2@example.com"}
+                {"name": "User3", "email": "user3@example.com"}
+                """);
+
+        assertEquals(3, results.size());
+        assertEquals(2, results.get(2).index());
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+        verify(userRepository, never()).findExistingEmails(anyCollection());
+    }
+
+    @Test
+    void importUsers_MalformedJson_KeepsParsedEntries() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+
+        List<UserImportResultDto> results = importUsers("""
+                {"name": "User1", "email": "user1@example.com"}
+                {"name": "User2", "email":
+                """);
+
+        assertEquals(2, results.size());
+        assertEquals(ImportStatus.CREATED, results.get(0).status());
+        assertEquals(ImportStatus.INVALID, results.get(1).status());
+    }
+}
@@ -1,15 +1,21 @@
 package com.ms.user.services;
 
+import com.ms.user.dtos.UserPageDto;
 import com.ms.user.exceptions.EmailAlreadyExistsException;
+import com.ms.user.exceptions.InvalidCursorException;
 import com.ms.user.exceptions.UserNotFoundException;
+import com.ms.user.exceptions.VersionConflictException;
 import com.ms.user.models.UserModel;
-import com.ms.user.producers.UserProducer;
 import com.ms.user.repositories.UserRepository;
+import com.ms.user.repositories.UserRepository.UserUpdateResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +23,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -26,7 +34,10 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private UserProducer userProducer;
+    private OutboxService outboxService;
+
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
 
     @InjectMocks
     private UserService userService;
@@ -34,49 +45,116 @@ class UserServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(userService, "maxPageSize", 100);
     }
 
     @Test
     void save_NewUser_Success() {
         UserModel newUser = new UserModel(UUID.randomUUID(), "Test User", "test@example.com");
 
+        when(emailBloomFilter.mightContain(newUser.getEmail())).thenReturn(true);
         when(userRepository.findByEmail(newUser.getEmail())).thenReturn(Optional.empty());
-        when(userRepository.save(newUser)).thenReturn(newUser);
+        when(userRepository.saveAndFlush(newUser)).thenReturn(newUser);
 
         UserModel savedUser = userService.save(newUser);
 
         assertEquals(newUser, savedUser);
         verify(userRepository, times(1)).findByEmail(newUser.getEmail());
-        verify(userRepository, times(1)).save(newUser);
-        verify(userProducer, times(1)).publishMessageEmail(newUser);
+        verify(userRepository, times(1)).saveAndFlush(newUser);
+        verify(emailBloomFilter, times(1)).add(newUser.getEmail());
+        verify(outboxService, times(1)).enqueueWelcomeEmail(newUser);
+    }
+
+    @Test
+    void save_EmailNotInFilter_SkipsLookup() {
+        UserModel newUser = new UserModel(UUID.randomUUID(), "Test User", "test@example.com");
+
+        when(emailBloomFilter.mightContain(newUser.getEmail())).thenReturn(false);
+        when(userRepository.saveAndFlush(newUser)).thenReturn(newUser);
+
+        userService.save(newUser);
+
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(userRepository, times(1)).saveAndFlush(newUser);
+        verify(outboxService, times(1)).enqueueWelcomeEmail(newUser);
     }
 
     @Test
     void save_ExistingUser_ExceptionThrown() {
         UserModel existingUser = new UserModel(UUID.randomUUID(), "Test User", "test@example.com");
 
+        when(emailBloomFilter.mightContain(existingUser.getEmail())).thenReturn(true);
         when(userRepository.findByEmail(existingUser.getEmail())).thenReturn(Optional.of(existingUser));
 
         assertThrows(EmailAlreadyExistsException.class, () -> userService.save(existingUser));
         verify(userRepository, times(1)).findByEmail(existingUser.getEmail());
-        verify(userRepository, never()).save(existingUser);
-        verify(userProducer, never()).publishMessageEmail(existingUser);
+        verify(userRepository, never()).saveAndFlush(existingUser);
+        verify(outboxService, never()).enqueueWelcomeEmail(existingUser);
     }
 
     @Test
-    void getAllUsers() {
+    void save_UniqueConstraintViolation_ExceptionThrown() {
+        UserModel newUser = new UserModel(UUID.randomUUID(), "Test User", "test@example.com");
+
+        when(emailBloomFilter.mightContain(newUser.getEmail())).thenReturn(false);
+        when(userRepository.saveAndFlush(newUser)).thenThrow(new DataIntegrityViolationException("uk_email"));
+
+        assertThrows(EmailAlreadyExistsException.class, () -> userService.save(newUser));
+        verify(emailBloomFilter, never()).add(anyString());
+        verify(outboxService, never()).enqueueWelcomeEmail(newUser);
+    }
+
+    @Test
+    void getUsers_FirstPage_ReturnsNextCursor() {
         List<UserModel> userList = new ArrayList<>();
         userList.add(new UserModel(UUID.randomUUID(), "User1", "user1@example.com"));
         userList.add(new UserModel(UUID.randomUUID(), "User2", "user2@example.com"));
+        userList.add(new UserModel(UUID.randomUUID(), "User3", "user3@example.com"));
 
-        when(userRepository.findAll()).thenReturn(userList);
+        when(userRepository.findAllByOrderByUserIdAsc(Limit.of(3))).thenReturn(userList);
 
-        List<UserModel> result = userService.getAllUsers();
+        UserPageDto result = userService.getUsers(null, 2);
 
-        assertEquals(userList.size(), result.size());
-        assertEquals(userList.get(0), result.get(0));
-        assertEquals(userList.get(1), result.get(1));
-        verify(userRepository, times(1)).findAll();
+        assertEquals(2, result.users().size());
+        assertEquals(userList.get(0), result.users().get(0));
+        assertEquals(userList.get(1), result.users().get(1));
+        assertNotNull(result.nextCursor());
+        verify(userRepository, times(1)).findAllByOrderByUserIdAsc(Limit.of(3));
+    }
+
+    @Test
+    void getUsers_NextCursor_ContinuesAfterLastUser() {
+        UUID lastUserId = UUID.randomUUID();
+        List<UserModel> firstPage = List.of(
+                new UserModel(UUID.randomUUID(), "User1", "user1@example.com"),
+                new UserModel(lastUserId, "User2", "user2@example.com"),
+                new UserModel(UUID.randomUUID(), "User3", "user3@example.com"));
+        List<UserModel> lastPage = List.of(new UserModel(UUID.randomUUID(), "User3", "user3@example.com"));
+
+        when(userRepository.findAllByOrderByUserIdAsc(Limit.of(3))).thenReturn(firstPage);
+        when(userRepository.findByUserIdGreaterThanOrderByUserIdAsc(lastUserId, Limit.of(3))).thenReturn(lastPage);
+
+        String cursor = userService.getUsers(null, 2).nextCursor();
+        UserPageDto result = userService.getUsers(cursor, 2);
+
+        assertEquals(lastPage, result.users());
+        assertNull(result.nextCursor());
+        verify(userRepository, times(1)).findByUserIdGreaterThanOrderByUserIdAsc(lastUserId, Limit.of(3));
+    }
+
+    @Test
+    void getUsers_PageSizeIsCapped() {
+        when(userRepository.findAllByOrderByUserIdAsc(Limit.of(101))).thenReturn(List.of());
+
+        userService.getUsers(null, 10_000);
+
+        verify(userRepository, times(1)).findAllByOrderByUserIdAsc(Limit.of(101));
+    }
+
+    @Test
+    void getUsers_InvalidCursor_ExceptionThrown() {
+        assertThrows(InvalidCursorException.class, () -> userService.getUsers("não-é-um-cursor", 20));
+        verify(userRepository, never()).findByUserIdGreaterThanOrderByUserIdAsc(any(UUID.class), any(Limit.class));
     }
 
     @Test
@@ -106,40 +184,68 @@ class UserServiceTest {
     void deleteById_ExistingUser_Success() {
         UUID userId = UUID.randomUUID();
 
-        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.deleteIfVersionMatches(userId, null)).thenReturn(Optional.of("test@example.com"));
 
-        userService.deleteById(userId);
+        userService.deleteById(userId, null);
 
-        verify(userRepository, times(1)).existsById(userId);
-        verify(userRepository, times(1)).deleteById(userId);
+        verify(userRepository, times(1)).deleteIfVersionMatches(userId, null);
+        verify(userRepository, never()).findById(userId);
+        verify(emailBloomFilter, times(1)).removeAfterCommit("test@example.com");
     }
 
     @Test
     void deleteById_NonExistingUser_ExceptionThrown() {
         UUID userId = UUID.randomUUID();
 
+        when(userRepository.deleteIfVersionMatches(userId, null)).thenReturn(Optional.empty());
         when(userRepository.existsById(userId)).thenReturn(false);
 
-        assertThrows(UserNotFoundException.class, () -> userService.deleteById(userId));
-        verify(userRepository, times(1)).existsById(userId);
-        verify(userRepository, never()).deleteById(userId);
+        assertThrows(UserNotFoundException.class, () -> userService.deleteById(userId, null));
+        verify(emailBloomFilter, never()).removeAfterCommit(anyString());
+    }
+
+    @Test
+    void deleteById_StaleVersion_VersionConflict() {
+        UUID userId = UUID.randomUUID();
+
+        when(userRepository.deleteIfVersionMatches(userId, 1L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(true);
+
+        assertThrows(VersionConflictException.class, () -> userService.deleteById(userId, 1L));
+        verify(emailBloomFilter, never()).removeAfterCommit(anyString());
     }
 
     @Test
     void updateUser_ExistingUser_Success() {
         UUID userId = UUID.randomUUID();
         UserModel userDetails = new UserModel(userId, "Updated User", "updated@example.com");
-        UserModel existingUser = new UserModel(userId, "Test User", "test@example.com");
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(existingUser));
-        when(userRepository.save(existingUser)).thenReturn(existingUser);
+        when(userRepository.updateIfVersionMatches(userId, "Updated User", "updated@example.com", 0L))
+                .thenReturn(Optional.of(updateResult("test@example.com", 1)));
 
-        UserModel updatedUser = userService.updateUser(userId, userDetails);
+        UserModel updatedUser = userService.updateUser(userId, userDetails, 0L);
 
         assertEquals(userDetails.getName(), updatedUser.getName());
         assertEquals(userDetails.getEmail(), updatedUser.getEmail());
-        verify(userRepository, times(1)).findById(userId);
-        verify(userRepository, times(1)).save(existingUser);
+        assertEquals(1, updatedUser.getVersion());
+        verify(userRepository, never()).findById(userId);
+        verify(userRepository, never()).save(any(UserModel.class));
+        verify(emailBloomFilter, times(1)).add("updated@example.com");
+        verify(emailBloomFilter, times(1)).removeAfterCommit("test@example.com");
+    }
+
+    @Test
+    void updateUser_SameEmail_BloomFilterUntouched() {
+        UUID userId = UUID.randomUUID();
+        UserModel userDetails = new UserModel(userId, "Updated User", "test@example.com");
+
+        when(userRepository.updateIfVersionMatches(userId, "Updated User", "test@example.com", null))
+                .thenReturn(Optional.of(updateResult("test@example.com", 2)));
+
+        userService.updateUser(userId, userDetails, null);
+
+        verify(emailBloomFilter, never()).add(anyString());
+        verify(emailBloomFilter, never()).removeAfterCommit(anyString());
     }
 
     @Test
@@ -147,10 +253,48 @@ class UserServiceTest {
         UUID userId = UUID.randomUUID();
         UserModel userDetails = new UserModel(userId, "Updated User", "updated@example.com");
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.updateIfVersionMatches(userId, "Updated User", "updated@example.com", null)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
-        assertThrows(UserNotFoundException.class, () -> userService.updateUser(userId, userDetails));
-        verify(userRepository, times(1)).findById(userId);
-        verify(userRepository, never()).save(any(UserModel.class));
+        assertThrows(UserNotFoundException.class, () -> userService.updateUser(userId, userDetails, null));
+        verify(emailBloomFilter, never()).add(anyString());
+    }
+
+    @Test
+    void updateUser_StaleVersion_VersionConflict() {
+        UUID userId = UUID.randomUUID();
+        UserModel userDetails = new UserModel(userId, "Updated User", "updated@example.com");
+
+        when(userRepository.updateIfVersionMatches(userId, "Updated User", "updated@example.com", 1L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(true);
+
+        assertThrows(VersionConflictException.class, () -> userService.updateUser(userId, userDetails, 1L));
+        verify(emailBloomFilter, never()).add(anyString());
+    }
+
+    @Test
+    void updateUser_EmailTaken_EmailAlreadyExists() {
+        UUID userId = UUID.randomUUID();
+        UserModel userDetails = new UserModel(userId, "Updated User", "taken@example.com");
+
+        when(userRepository.updateIfVersionMatches(userId, "Updated User", "taken@example.com", null))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        assertThrows(EmailAlreadyExistsException.class, () -> userService.updateUser(userId, userDetails, null));
+        verify(emailBloomFilter, never()).add(anyString());
+    }
+
+    private static UserUpdateResult updateResult(String previousEmail, long version) {
+        return new UserUpdateResult() {
+            @Override
+            public String getPreviousEmail() {
+                return previousEmail;
+            }
+
+            @Override
+            public long getVersion() {
+                return version;
+            }
+        };
     }
 }